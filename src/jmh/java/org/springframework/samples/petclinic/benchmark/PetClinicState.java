@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Boots the application once per trial against an in-memory H2 database, with the
+ * {@code datagen} profile adding {@link #owners} generated owners, each with two pets
+ * that have two visits each, on top of the sample data. Generation is seeded so every run
+ * sees the same data.
+ */
+@State(Scope.Benchmark)
+public class PetClinicState {
+
+	/**
+	 * Last names to search for, each shared by many generated owners.
+	 */
+	static final String[] LAST_NAMES = { "Davis", "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+			"Rodriguez", "Martinez", "Wilson", "Anderson", "Taylor", "Moore", "Jackson", "Martin" };
+
+	@Param("10000")
+	public int owners;
+
+	public ConfigurableApplicationContext context;
+
+	/**
+	 * Id of the last owner, owners are numbered from 1.
+	 */
+	public int maxOwnerId;
+
+	@Setup(Level.Trial)
+	public void start() {
+		// devtools is on the Maven test class path, keep it from disabling template
+		// caching
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class).profiles("datagen")
+				.properties("server.port=0", "logging.level.root=WARN", "spring.jmx.enabled=false",
+						"spring.devtools.add-properties=false", "petclinic.datagen.owners=" + this.owners,
+						"petclinic.datagen.pets-per-owner=2", "petclinic.datagen.visits-per-pet=2",
+						"petclinic.datagen.vets=0", "petclinic.datagen.specialties=0")
+				.run();
+		this.maxOwnerId = this.context.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(id) FROM owners",
+				Integer.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		this.context.close();
+	}
+
+}
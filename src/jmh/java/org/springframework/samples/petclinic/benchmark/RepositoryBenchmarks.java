@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerNameIndex;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.PetTypeFormatter;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+
+/**
+ * Benchmarks the repository and formatter calls behind the owner search, owner details,
+ * vet list and pet forms, with and without their caches, and the last-name suggestions
+ * of the find form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RepositoryBenchmarks {
+
+	private static final Pageable FIRST_PAGE = PageRequest.of(0, 5);
+
+	private OwnerRepository owners;
+
+	private VetRepository vets;
+
+	private PetTypeFormatter petTypeFormatter;
+
+	private OwnerNameIndex ownerNames;
+
+	private Cache ownersCache;
+
+	private Cache vetsCache;
+
+	@Setup
+	public void setup(PetClinicState state) {
+		this.owners = state.context.getBean(OwnerRepository.class);
+		this.vets = state.context.getBean(VetRepository.class);
+		this.petTypeFormatter = state.context.getBean(PetTypeFormatter.class);
+		this.ownerNames = state.context.getBean(OwnerNameIndex.class);
+		CacheManager cacheManager = state.context.getBean(CacheManager.class);
+		this.ownersCache = cacheManager.getCache("owners");
+		this.vetsCache = cacheManager.getCache("vets");
+	}
+
+	@Benchmark
+	public Page<Owner> findByLastName() {
+		return this.owners.findByLastName(randomLastName(), FIRST_PAGE);
+	}
+
+	@Benchmark
+	public Owner findByIdCached() {
+		return this.owners.findById(1);
+	}
+
+	@Benchmark
+	public Owner findByIdUncached(PetClinicState state) {
+		int id = ThreadLocalRandom.current().nextInt(1, state.maxOwnerId + 1);
+		this.ownersCache.evict(id);
+		return this.owners.findById(id);
+	}
+
+	@Benchmark
+	public Collection<Vet> findAllVetsCached() {
+		return this.vets.findAll();
+	}
+
+	@Benchmark
+	public Collection<Vet> findAllVetsUncached() {
+		this.vetsCache.clear();
+		return this.vets.findAll();
+	}
+
+	@Benchmark
+	public PetType parsePetType() throws ParseException {
+		return this.petTypeFormatter.parse("hamster", Locale.ENGLISH);
+	}
+
+	@Benchmark
+	public List<String> suggestLastNames() {
+		return this.ownerNames.suggest(randomLastName().substring(0, 2), 10);
+	}
+
+	static String randomLastName() {
+		return PetClinicState.LAST_NAMES[ThreadLocalRandom.current().nextInt(PetClinicState.LAST_NAMES.length)];
+	}
+
+}
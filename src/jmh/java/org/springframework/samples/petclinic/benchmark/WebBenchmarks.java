@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Benchmarks full request round-trips, including view rendering, through {@link MockMvc}
+ * for the main endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WebBenchmarks {
+
+	private MockMvc mockMvc;
+
+	@Setup
+	public void setup(PetClinicState state) {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) state.context).build();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse findOwners() throws Exception {
+		return perform(get("/owners").param("lastName", RepositoryBenchmarks.randomLastName()));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse showOwner(PetClinicState state) throws Exception {
+		return perform(get("/owners/{ownerId}", ThreadLocalRandom.current().nextInt(1, state.maxOwnerId + 1)));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse initNewPetForm(PetClinicState state) throws Exception {
+		return perform(get("/owners/{ownerId}/pets/new", ThreadLocalRandom.current().nextInt(1, state.maxOwnerId + 1)));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse showVetList() throws Exception {
+		return perform(get("/vets.html"));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse showVetsJson() throws Exception {
+		return perform(get("/vets").accept(MediaType.APPLICATION_JSON));
+	}
+
+	private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+		MockHttpServletResponse response = this.mockMvc.perform(request).andReturn().getResponse();
+		if (response.getStatus() >= 400) {
+			throw new IllegalStateException("Request failed with status " + response.getStatus());
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The fields selected with the {@code fields} parameter of the {@code /api/v1} endpoints,
+ * e.g. {@code id,lastName,pets.name}: field names separated by commas, with the fields of
+ * nested resources after a dot. Selecting a field selects all of its nested fields, and
+ * no selection at all selects every field.
+ */
+final class FieldSelection {
+
+	static final FieldSelection ALL = new FieldSelection(null);
+
+	/**
+	 * The selected paths, or {@literal null} for all of them.
+	 */
+	private final Set<String> paths;
+
+	private FieldSelection(Set<String> paths) {
+		this.paths = paths;
+	}
+
+	/**
+	 * Parse the value of a {@code fields} parameter.
+	 * @param fields the parameter value, {@literal null} or empty to select every field
+	 * @param known the paths that can be selected
+	 * @throws ResponseStatusException (400) if an unknown field is selected
+	 */
+	static FieldSelection parse(String fields, Collection<String> known) {
+		if (!StringUtils.hasText(fields)) {
+			return ALL;
+		}
+		Set<String> paths = new HashSet<>();
+		for (String path : StringUtils.commaDelimitedListToSet(fields)) {
+			path = path.trim();
+			if (!known.contains(path)) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field '" + path + "'");
+			}
+			paths.add(path);
+		}
+		return new FieldSelection(paths);
+	}
+
+	/**
+	 * Whether the given field, or one of its nested fields, is selected.
+	 */
+	boolean includes(String field) {
+		if (this.paths == null || this.paths.contains(field)) {
+			return true;
+		}
+		String prefix = field + ".";
+		return this.paths.stream().anyMatch(path -> path.startsWith(prefix));
+	}
+
+	/**
+	 * The selected fields of the resources nested in the given field.
+	 */
+	FieldSelection nested(String field) {
+		if (this.paths == null || this.paths.contains(field)) {
+			return ALL;
+		}
+		String prefix = field + ".";
+		Set<String> nested = new HashSet<>();
+		for (String path : this.paths) {
+			if (path.startsWith(prefix)) {
+				nested.add(path.substring(prefix.length()));
+			}
+		}
+		return new FieldSelection(nested);
+	}
+
+}
@@ -15,21 +15,28 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.samples.petclinic.model.Person;
 import org.springframework.util.Assert;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotEmpty;
 
@@ -44,8 +51,32 @@ import jakarta.validation.constraints.NotEmpty;
  */
 @Entity
 @Table(name = "owners")
+@NamedEntityGraph(name = Owner.SUMMARY_GRAPH)
+@NamedEntityGraph(name = Owner.WITH_PETS_GRAPH, attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pet"),
+		subgraphs = @NamedSubgraph(name = "pet", attributeNodes = @NamedAttributeNode("type")))
+@NamedEntityGraph(name = Owner.WITH_PETS_AND_VISITS_GRAPH,
+		attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pet"), subgraphs = @NamedSubgraph(name = "pet",
+				attributeNodes = { @NamedAttributeNode("type"), @NamedAttributeNode("visits") }))
 public class Owner extends Person {
 
+	/**
+	 * Fetch plan for the owner's own columns only, e.g. for the owner edit form.
+	 */
+	public static final String SUMMARY_GRAPH = "owner-summary";
+
+	/**
+	 * Fetch plan for the owner and its pets (with their types), but no visits.
+	 */
+	public static final String WITH_PETS_GRAPH = "owner-with-pets";
+
+	/**
+	 * Fetch plan for the whole aggregate as shown on the owner details page.
+	 */
+	public static final String WITH_PETS_AND_VISITS_GRAPH = "owner-with-pets-and-visits";
+
+	private static final Comparator<Pet> BY_NAME = Comparator.comparing(Pet::getName,
+			Comparator.nullsLast(Comparator.naturalOrder()));
+
 	@Column(name = "address")
 	@NotEmpty
 	private String address;
@@ -59,10 +90,38 @@ public class Owner extends Person {
 	@Digits(fraction = 0, integer = 10)
 	private String telephone;
 
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-	@JoinColumn(name = "owner_id")
+	/**
+	 * Lower-cased last name, computed by the database. Owners are searched by a prefix of
+	 * it, which every supported database can look up in an index whatever the case of the
+	 * search term.
+	 */
+	@Column(name = "search_last_name", insertable = false, updatable = false)
+	private String searchLastName;
+
+	/**
+	 * Incremented whenever the owner, one of its pets or one of their visits changes, so
+	 * that it identifies the state of the owner details page (see
+	 * {@link OwnerController#showOwner}).
+	 */
+	@Version
+	@Column(name = "version")
+	private Integer version;
+
+	/**
+	 * A set rather than a list: fetched together with the visits of the pets, a list
+	 * would hold each pet once per visit.
+	 */
+	@OneToMany(cascade = CascadeType.ALL)
+	@JoinColumn(name = "owner_id", nullable = false, updatable = false)
 	@OrderBy("name")
-	private List<Pet> pets = new ArrayList<>();
+	private Set<Pet> pets = new LinkedHashSet<>();
+
+	/**
+	 * Read-only view of the pets sorted by name, built on first access after a pet is
+	 * added: the owner details page and the API read it on every render of a (cached)
+	 * owner, while the lookups by name or id go through the set.
+	 */
+	private transient List<Pet> sortedPets;
 
 	public String getAddress() {
 		return this.address;
@@ -88,13 +147,28 @@ public class Owner extends Person {
 		this.telephone = telephone;
 	}
 
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * The pets of this owner sorted by name, new ones included, as a read-only list: add
+	 * pets with {@link #addPet(Pet)}. The fetch order of the pets depends on what is
+	 * fetched with them, so they are sorted here.
+	 */
 	public List<Pet> getPets() {
-		return this.pets;
+		List<Pet> sorted = this.sortedPets;
+		if (sorted == null) {
+			sorted = this.pets.stream().sorted(BY_NAME).toList();
+			this.sortedPets = sorted;
+		}
+		return sorted;
 	}
 
 	public void addPet(Pet pet) {
 		if (pet.isNew()) {
-			getPets().add(pet);
+			this.pets.add(pet);
+			this.sortedPets = null;
 		}
 	}
 
@@ -113,7 +187,7 @@ public class Owner extends Person {
 	 * @return a pet if pet id is already in use
 	 */
 	public Pet getPet(Integer id) {
-		for (Pet pet : getPets()) {
+		for (Pet pet : this.pets) {
 			if (!pet.isNew()) {
 				Integer compId = pet.getId();
 				if (compId.equals(id)) {
@@ -131,7 +205,7 @@ public class Owner extends Person {
 	 */
 	public Pet getPet(String name, boolean ignoreNew) {
 		name = name.toLowerCase();
-		for (Pet pet : getPets()) {
+		for (Pet pet : this.pets) {
 			if (!ignoreNew || !pet.isNew()) {
 				String compName = pet.getName();
 				compName = compName == null ? "" : compName.toLowerCase();
@@ -170,4 +244,13 @@ public class Owner extends Person {
 		return this;
 	}
 
+	/**
+	 * Announces each save of this owner through {@link OwnerRepository#save(Owner)},
+	 * which covers changes to its pets as well.
+	 */
+	@DomainEvents
+	Collection<OwnerChangedEvent> domainEvents() {
+		return List.of(new OwnerChangedEvent(getId()));
+	}
+
 }
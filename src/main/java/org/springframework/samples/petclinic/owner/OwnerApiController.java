@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.owner.OwnerResource.Listing;
+import org.springframework.samples.petclinic.owner.OwnerResource.PetResource;
+import org.springframework.samples.petclinic.owner.OwnerResource.VisitResource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Read-only JSON API over owners, their pets and visits. Every endpoint takes a
+ * {@code fields} parameter selecting what to return (see {@link FieldSelection}), and
+ * only reads what is selected: owners without their pets, pets without their visits.
+ * <p>
+ * Owners are listed by last name a page at a time. Each page ends with the cursor of the
+ * next one, to pass as {@code cursor}, so that reading page after page does not get
+ * slower the further it goes.
+ */
+@RestController
+@RequestMapping("/api/v1")
+class OwnerApiController {
+
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private final OwnerService owners;
+
+	public OwnerApiController(OwnerService owners) {
+		this.owners = owners;
+	}
+
+	@GetMapping("/owners")
+	public Listing listOwners(@RequestParam(defaultValue = "") String lastName,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+			@RequestParam(required = false) String fields) {
+		FieldSelection selection = FieldSelection.parse(fields, OwnerResource.FIELDS);
+		Cursor after = cursor == null ? null : Cursor.decode(cursor);
+		Slice<OwnerSummary> summaries = this.owners.findOwnerSummaries(lastName,
+				after == null ? null : after.lastName(), after == null ? null : after.id(),
+				PageRequest.ofSize(Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+
+		List<OwnerResource> resources;
+		if (selection.includes("pets")) {
+			Map<Integer, Owner> withPets = this.owners
+					.findOwnersWithPets(summaries.map(OwnerSummary::getId).getContent(),
+							selection.nested("pets").includes("visits"))
+					.stream().collect(Collectors.toMap(Owner::getId, Function.identity()));
+			resources = summaries.map(summary -> OwnerResource.of(withPets.get(summary.getId()), selection))
+					.getContent();
+		}
+		else {
+			resources = summaries.map(summary -> OwnerResource.of(summary, selection)).getContent();
+		}
+
+		String next = null;
+		if (summaries.hasNext()) {
+			OwnerSummary last = summaries.getContent().get(summaries.getNumberOfElements() - 1);
+			next = new Cursor(last.getLastName(), last.getId()).encode();
+		}
+		return new Listing(resources, next);
+	}
+
+	@GetMapping("/owners/{ownerId}")
+	public OwnerResource showOwner(@PathVariable("ownerId") int ownerId,
+			@RequestParam(required = false) String fields) {
+		FieldSelection selection = FieldSelection.parse(fields, OwnerResource.FIELDS);
+		Owner owner;
+		if (!selection.includes("pets")) {
+			owner = this.owners.findOwner(ownerId);
+		}
+		else if (!selection.nested("pets").includes("visits")) {
+			owner = this.owners.findOwnerWithPets(ownerId);
+		}
+		else {
+			owner = this.owners.findOwnerDetails(ownerId);
+		}
+		return OwnerResource.of(found(owner), selection);
+	}
+
+	@GetMapping("/owners/{ownerId}/pets")
+	public List<PetResource> listPets(@PathVariable("ownerId") int ownerId,
+			@RequestParam(required = false) String fields) {
+		FieldSelection selection = FieldSelection.parse(fields, PetResource.FIELDS);
+		Owner owner = selection.includes("visits") ? this.owners.findOwnerDetails(ownerId)
+				: this.owners.findOwnerWithPets(ownerId);
+		return PetResource.of(found(owner).getPets(), selection);
+	}
+
+	@GetMapping("/owners/{ownerId}/pets/{petId}")
+	public PetResource showPet(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@RequestParam(required = false) String fields) {
+		FieldSelection selection = FieldSelection.parse(fields, PetResource.FIELDS);
+		return PetResource.of(found(this.owners.findPet(ownerId, petId)), selection);
+	}
+
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public List<VisitResource> listVisits(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@RequestParam(required = false) String fields) {
+		FieldSelection selection = FieldSelection.parse(fields, VisitResource.FIELDS);
+		return VisitResource.of(found(this.owners.findPet(ownerId, petId)).getVisits(), selection);
+	}
+
+	private static <T> T found(T resource) {
+		if (resource == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		return resource;
+	}
+
+	/**
+	 * Keyset of the last owner of a page, sent to clients as an opaque URL-safe string.
+	 */
+	record Cursor(String lastName, Integer id) {
+
+		String encode() {
+			byte[] value = (this.id + ":" + this.lastName).getBytes(StandardCharsets.UTF_8);
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+		}
+
+		static Cursor decode(String cursor) {
+			try {
+				String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+				int separator = value.indexOf(':');
+				return new Cursor(value.substring(separator + 1), Integer.valueOf(value.substring(0, separator)));
+			}
+			catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+			}
+		}
+
+	}
+
+}
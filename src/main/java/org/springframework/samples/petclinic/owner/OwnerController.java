@@ -16,23 +16,28 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 /**
@@ -44,12 +49,19 @@ import jakarta.validation.Valid;
 @Controller
 class OwnerController {
 
-	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
+	static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
-	private final OwnerRepository owners;
+	private static final int PAGE_SIZE = 5;
 
-	public OwnerController(OwnerRepository clinicService) {
-		this.owners = clinicService;
+	private static final int MAX_SUGGESTIONS = 50;
+
+	private final OwnerService owners;
+
+	private final OwnerNameIndex ownerNames;
+
+	public OwnerController(OwnerService owners, OwnerNameIndex ownerNames) {
+		this.owners = owners;
+		this.ownerNames = ownerNames;
 	}
 
 	@InitBinder
@@ -57,11 +69,6 @@ class OwnerController {
 		dataBinder.setDisallowedFields("id");
 	}
 
-	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
-		return ownerId == null ? new Owner() : this.owners.findById(ownerId);
-	}
-
 	@GetMapping("/owners/new")
 	public String initCreationForm(Map<String, Object> model) {
 		Owner owner = new Owner();
@@ -75,25 +82,50 @@ class OwnerController {
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 		}
 
-		this.owners.save(owner);
+		this.owners.saveOwner(owner);
+		this.ownerNames.put(owner.getId(), owner.getLastName());
 		return "redirect:/owners/" + owner.getId();
 	}
 
 	@GetMapping("/owners/find")
-	public String initFindForm() {
+	public String initFindForm(Map<String, Object> model) {
+		model.put("owner", new Owner());
 		return "owners/findOwners";
 	}
 
+	/**
+	 * Suggest last names for the find form as they are typed, from the in-memory
+	 * {@link OwnerNameIndex} rather than the database.
+	 */
+	@GetMapping("/owners/suggestions")
+	@ResponseBody
+	public List<String> suggestLastNames(@RequestParam(defaultValue = "") String lastName,
+			@RequestParam(defaultValue = "10") int limit) {
+		return this.ownerNames.suggest(lastName, Math.max(0, Math.min(limit, MAX_SUGGESTIONS)));
+	}
+
+	/**
+	 * Search owners by last name. Pages are addressed either by number ({@code page}) or,
+	 * when {@code afterLastName} and {@code afterId} are given, by the last owner of the
+	 * previous page (keyset pagination), which neither skips rows nor counts them.
+	 */
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(defaultValue = "1") int page,
+			@RequestParam(required = false) String afterLastName, @RequestParam(required = false) Integer afterId,
+			Owner owner, BindingResult result, Model model) {
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
 			owner.setLastName(""); // empty string signifies broadest possible search
 		}
 
+		if (afterLastName != null && afterId != null) {
+			Slice<OwnerSummary> ownersResults = this.owners.findOwnersAfter(owner.getLastName(), afterLastName, afterId,
+					PageRequest.ofSize(PAGE_SIZE));
+			return addKeysetModel(page, model, ownersResults);
+		}
+
 		// find owners by last name
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
+		Page<OwnerSummary> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
 		if (ownersResults.isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
@@ -102,60 +134,78 @@ class OwnerController {
 
 		if (ownersResults.getTotalElements() == 1) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			OwnerSummary found = ownersResults.iterator().next();
+			return "redirect:/owners/" + found.getId();
 		}
 
 		// multiple owners found
 		return addPaginationModel(page, model, ownersResults);
 	}
 
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
-		model.addAttribute("listOwners", paginated);
-		List<Owner> listOwners = paginated.getContent();
+	private String addPaginationModel(int page, Model model, Page<OwnerSummary> paginated) {
+		List<OwnerSummary> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
 		model.addAttribute("listOwners", listOwners);
+		addNextCursor(model, paginated);
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
-	}
-
-	@GetMapping("/owners/{ownerId}/edit")
-	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
-		model.addAttribute(owner);
-		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+	private String addKeysetModel(int page, Model model, Slice<OwnerSummary> slice) {
+		model.addAttribute("keyset", true);
+		model.addAttribute("currentPage", page);
+		model.addAttribute("listOwners", slice.getContent());
+		addNextCursor(model, slice);
+		return "owners/ownersList";
 	}
 
-	@PostMapping("/owners/{ownerId}/edit")
-	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result,
-			@PathVariable("ownerId") int ownerId) {
-		if (result.hasErrors()) {
-			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+	private void addNextCursor(Model model, Slice<OwnerSummary> slice) {
+		if (slice.hasNext()) {
+			OwnerSummary last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			model.addAttribute("nextAfterLastName", last.getLastName());
+			model.addAttribute("nextAfterId", last.getId());
 		}
+	}
 
-		owner.setId(ownerId);
-		this.owners.save(owner);
-		return "redirect:/owners/{ownerId}";
+	private Page<OwnerSummary> findPaginatedForOwnersLastName(int page, String lastname) {
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
+		return this.owners.findOwners(lastname, pageable);
 	}
 
 	/**
 	 * Custom handler for displaying an owner.
+	 * <p>
+	 * The page is tagged with the owner's version and the locale it is rendered in, and
+	 * varies by {@code Accept-Language}. A request revalidating it with
+	 * {@code If-None-Match} only reads that version, and gets a 304 response without
+	 * loading the owner or rendering the page if it still matches.
 	 * @param ownerId the ID of the owner to display
-	 * @return a ModelMap with the model attributes for the view
+	 * @return a ModelMap with the model attributes for the view, or {@literal null} if
+	 * the page was not modified
 	 */
 	@GetMapping("/owners/{ownerId}")
-	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
+	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId, WebRequest request, Locale locale,
+			HttpServletResponse response) {
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				&& request.checkNotModified(ownerEtag(this.owners.findOwnerVersion(ownerId), locale))) {
+			return null;
+		}
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.owners.findOwnerDetails(ownerId);
+		if (owner != null && request.checkNotModified(ownerEtag(owner.getVersion(), locale))) {
+			return null;
+		}
 		mav.addObject(owner);
 		return mav;
 	}
 
+	/**
+	 * Weak, as the page is the same whether or not it is compressed.
+	 */
+	private static String ownerEtag(Integer version, Locale locale) {
+		return version == null ? null : "W/\"" + version + "-" + locale.toLanguageTag() + "\"";
+	}
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.springframework.samples.petclinic.owner.OwnerController.VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.validation.Valid;
+
+/**
+ * The owner edit form. Every handler here works on the owner read by
+ * {@link #findOwner(int)}, which the form is bound to; the other owner pages read what
+ * they need themselves, see {@link OwnerController}. The changes are saved to the owner
+ * as read again by {@link OwnerService#updateOwner}.
+ */
+@Controller
+@RequestMapping("/owners/{ownerId}/edit")
+class OwnerEditController {
+
+	private final OwnerService owners;
+
+	private final OwnerNameIndex ownerNames;
+
+	public OwnerEditController(OwnerService owners, OwnerNameIndex ownerNames) {
+		this.owners = owners;
+		this.ownerNames = ownerNames;
+	}
+
+	@InitBinder
+	public void setAllowedFields(WebDataBinder dataBinder) {
+		dataBinder.setDisallowedFields("id");
+	}
+
+	@ModelAttribute("owner")
+	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
+		Owner owner = this.owners.findOwner(ownerId);
+		if (owner == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No owner " + ownerId);
+		}
+		return owner;
+	}
+
+	@GetMapping
+	public String initUpdateOwnerForm() {
+		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+	}
+
+	@PostMapping
+	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result,
+			@PathVariable("ownerId") int ownerId) {
+		if (result.hasErrors()) {
+			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+		}
+
+		if (!this.owners.updateOwner(ownerId, owner)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No owner " + ownerId);
+		}
+		this.ownerNames.put(ownerId, owner.getLastName());
+		return "redirect:/owners/{ownerId}";
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exporting all owners with their pets and visits to a new file in the
+ * {@link OwnerExportProperties#getDirectory() export directory}, e.g.
+ * {@code POST /actuator/export} with {@code {"format": "csv", "gzip": true}}. Answers
+ * once the export is written, with its {@link OwnerExportReport}.
+ */
+@Component
+@Endpoint(id = "export")
+public class OwnerExportEndpoint {
+
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	private final OwnerExporter exporter;
+
+	private final OwnerExportProperties properties;
+
+	public OwnerExportEndpoint(OwnerExporter exporter, OwnerExportProperties properties) {
+		this.exporter = exporter;
+		this.properties = properties;
+	}
+
+	@WriteOperation
+	public OwnerExportReport export(@Nullable String format, @Nullable Boolean gzip) throws IOException {
+		OwnerFileFormat fileFormat = (format != null) ? format(format) : OwnerFileFormat.NDJSON;
+		String name = "owners-" + LocalDateTime.now().format(TIMESTAMP) + "." + fileFormat.getExtension()
+				+ (Boolean.TRUE.equals(gzip) ? ".gz" : "");
+		return this.exporter.export(Path.of(this.properties.getDirectory(), name));
+	}
+
+	private static OwnerFileFormat format(String format) {
+		try {
+			return OwnerFileFormat.valueOf(format.toUpperCase());
+		}
+		catch (IllegalArgumentException ex) {
+			throw new InvalidEndpointRequestException("Unknown format " + format, "Unknown format");
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the {@link OwnerExporter}.
+ */
+@ConfigurationProperties("petclinic.export")
+public class OwnerExportProperties {
+
+	/**
+	 * Number of rows the JDBC driver fetches at a time while exporting.
+	 */
+	private int fetchSize = 1000;
+
+	/**
+	 * Directory that exports triggered through the {@code export} actuator endpoint are
+	 * written to.
+	 */
+	private String directory = System.getProperty("java.io.tmpdir");
+
+	/**
+	 * CSV ({@code .csv}) or NDJSON file to export to on startup, gzipped if it ends with
+	 * {@code .gz}.
+	 */
+	private String file;
+
+	public int getFetchSize() {
+		return this.fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public String getDirectory() {
+		return this.directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public String getFile() {
+		return this.file;
+	}
+
+	public void setFile(String file) {
+		this.file = file;
+	}
+
+}
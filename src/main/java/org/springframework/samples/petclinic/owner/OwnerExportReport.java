@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.core.style.ToStringCreator;
+
+/**
+ * Outcome of an export by the {@link OwnerExporter}: what was written, and how fast.
+ */
+public class OwnerExportReport {
+
+	private String file;
+
+	private long owners;
+
+	private long pets;
+
+	private long visits;
+
+	private long rows;
+
+	private long millis;
+
+	/**
+	 * The file written to, if any.
+	 */
+	public String getFile() {
+		return this.file;
+	}
+
+	public long getOwners() {
+		return this.owners;
+	}
+
+	public long getPets() {
+		return this.pets;
+	}
+
+	public long getVisits() {
+		return this.visits;
+	}
+
+	/**
+	 * The number of rows read from the database, one per visit, pet without visits and
+	 * owner without pets.
+	 */
+	public long getRows() {
+		return this.rows;
+	}
+
+	public long getMillis() {
+		return this.millis;
+	}
+
+	public double getRowsPerSecond() {
+		return this.millis == 0 ? this.rows : this.rows * 1000.0 / this.millis;
+	}
+
+	void file(String file) {
+		this.file = file;
+	}
+
+	void row(boolean newOwner, boolean newPet, boolean visit) {
+		this.rows++;
+		this.owners += newOwner ? 1 : 0;
+		this.pets += newPet ? 1 : 0;
+		this.visits += visit ? 1 : 0;
+	}
+
+	void finished(long millis) {
+		this.millis = millis;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringCreator(this).append("file", this.file).append("owners", this.owners)
+				.append("pets", this.pets).append("visits", this.visits).append("rows", this.rows)
+				.append("millis", this.millis).toString();
+	}
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.samples.petclinic.owner.OwnerResource.PetResource;
+import org.springframework.samples.petclinic.owner.OwnerResource.VisitResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * Exports all owners with their pets and visits as CSV or NDJSON, in the formats the
+ * {@link OwnerImporter} reads. The rows are read with a single query through a
+ * forward-only cursor, {@link OwnerExportProperties#getFetchSize() fetch-size} rows at a
+ * time, and written as they are read, so that memory use does not grow with the size of
+ * the clinic. The query runs in a read-only transaction, which keeps the cursor open on
+ * PostgreSQL and sends it to a read replica if there is one. MySQL only fetches through a
+ * cursor with {@code useCursorFetch}, which the {@code mysql} profile sets.
+ * <p>
+ * Besides the {@code export} actuator endpoint, the owners can be exported on startup
+ * with {@code --petclinic.export.file=owners.ndjson.gz}.
+ */
+@Component
+@EnableConfigurationProperties(OwnerExportProperties.class)
+public class OwnerExporter implements ApplicationRunner {
+
+	static final List<String> CSV_COLUMNS = List.of("ownerId", "firstName", "lastName", "address", "city", "telephone",
+			"petId", "petName", "petBirthDate", "petType", "visitId", "visitDate", "visitDescription");
+
+	private static final String SELECT_ROWS = "SELECT owners.id, owners.first_name, owners.last_name, owners.address, "
+			+ "owners.city, owners.telephone, pets.id, pets.name, pets.birth_date, types.name, visits.id, "
+			+ "visits.visit_date, visits.description FROM owners LEFT JOIN pets ON pets.owner_id = owners.id "
+			+ "LEFT JOIN types ON types.id = pets.type_id LEFT JOIN visits ON visits.pet_id = pets.id "
+			+ "ORDER BY owners.id, pets.id, visits.id";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final Log logger = LogFactory.getLog(OwnerExporter.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final CsvMapper csvMapper = (CsvMapper) new CsvMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	private final OwnerExportProperties properties;
+
+	public OwnerExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper, OwnerExportProperties properties) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		if (this.properties.getFile() != null) {
+			export(Path.of(this.properties.getFile()));
+		}
+	}
+
+	/**
+	 * Export to the given file, in the format of its extension, see
+	 * {@link OwnerFileFormat#of(String)}.
+	 * @param file the file to write, replaced if it exists
+	 * @return what was exported
+	 * @throws IOException if the file cannot be written
+	 */
+	public OwnerExportReport export(Path file) throws IOException {
+		String name = file.getFileName().toString();
+		OwnerExportReport report;
+		try (OutputStream output = OwnerFileFormat.isGzip(name)
+				? new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE)
+				: new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+			report = export(output, OwnerFileFormat.of(name));
+		}
+		report.file(file.toString());
+		return report;
+	}
+
+	/**
+	 * Export to the given output, which is flushed but left open.
+	 * @param output where to write the owners, in UTF-8
+	 * @param format the format to write
+	 * @return what was exported
+	 * @throws IOException if the output cannot be written
+	 */
+	public OwnerExportReport export(OutputStream output, OwnerFileFormat format) throws IOException {
+		long start = System.currentTimeMillis();
+		OwnerExportReport report = new OwnerExportReport();
+		Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+		Rows rows = (format == OwnerFileFormat.CSV) ? new CsvRows(writer, report) : new NdjsonRows(writer, report);
+		try {
+			this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.query(SELECT_ROWS, rows));
+			rows.finish();
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		writer.flush();
+		report.finished(System.currentTimeMillis() - start);
+		logger.info(
+				String.format("Exported %d owners, %d pets and %d visits in %d ms (%.0f rows/s)", report.getOwners(),
+						report.getPets(), report.getVisits(), report.getMillis(), report.getRowsPerSecond()));
+		return report;
+	}
+
+	/**
+	 * Writes the rows of the query as they are read. Rows come by owner, and by pet
+	 * within an owner.
+	 */
+	private abstract static class Rows implements RowCallbackHandler {
+
+		private final OwnerExportReport report;
+
+		private Integer ownerId;
+
+		private Integer petId;
+
+		Rows(OwnerExportReport report) {
+			this.report = report;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+			Integer ownerId = rs.getInt(1);
+			Integer petId = rs.getObject(7, Integer.class);
+			Integer visitId = rs.getObject(11, Integer.class);
+			boolean newOwner = !ownerId.equals(this.ownerId);
+			boolean newPet = petId != null && (newOwner || !petId.equals(this.petId));
+			this.report.row(newOwner, newPet, visitId != null);
+			this.ownerId = ownerId;
+			this.petId = petId;
+			try {
+				write(rs, ownerId, petId, visitId, newOwner, newPet);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		abstract void write(ResultSet rs, Integer ownerId, Integer petId, Integer visitId, boolean newOwner,
+				boolean newPet) throws SQLException, IOException;
+
+		abstract void finish();
+
+	}
+
+	private class CsvRows extends Rows {
+
+		private final SequenceWriter csv;
+
+		CsvRows(Writer writer, OwnerExportReport report) {
+			super(report);
+			CsvSchema.Builder schema = CsvSchema.builder().setUseHeader(true);
+			CSV_COLUMNS.forEach(schema::addColumn);
+			try {
+				this.csv = csvMapper.writer(schema.build()).writeValues(writer);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		@Override
+		void write(ResultSet rs, Integer ownerId, Integer petId, Integer visitId, boolean newOwner, boolean newPet)
+				throws SQLException, IOException {
+			this.csv.write(new Object[] { ownerId, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+					rs.getString(6), petId, rs.getString(8), Objects.toString(rs.getObject(9, LocalDate.class), null),
+					rs.getString(10), visitId, Objects.toString(rs.getObject(12, LocalDate.class), null),
+					rs.getString(13) });
+		}
+
+		@Override
+		void finish() {
+			try {
+				this.csv.close();
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+	/**
+	 * Builds up the owner being read, and writes it once the next one starts.
+	 */
+	private class NdjsonRows extends Rows {
+
+		private final Writer writer;
+
+		private OwnerResource owner;
+
+		private PetResource pet;
+
+		NdjsonRows(Writer writer, OwnerExportReport report) {
+			super(report);
+			this.writer = writer;
+		}
+
+		@Override
+		void write(ResultSet rs, Integer ownerId, Integer petId, Integer visitId, boolean newOwner, boolean newPet)
+				throws SQLException, IOException {
+			if (newOwner) {
+				writeOwner();
+				this.owner = new OwnerResource(ownerId, rs.getString(2), rs.getString(3), rs.getString(4),
+						rs.getString(5), rs.getString(6), new ArrayList<>());
+			}
+			if (newPet) {
+				this.pet = new PetResource(petId, rs.getString(8), rs.getObject(9, LocalDate.class), rs.getString(10),
+						new ArrayList<>());
+				this.owner.pets().add(this.pet);
+			}
+			if (visitId != null) {
+				this.pet.visits().add(new VisitResource(visitId, rs.getObject(12, LocalDate.class), rs.getString(13)));
+			}
+		}
+
+		@Override
+		void finish() {
+			try {
+				writeOwner();
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		private void writeOwner() throws IOException {
+			if (this.owner != null) {
+				this.writer.write(objectMapper.writeValueAsString(this.owner));
+				this.writer.write('\n');
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+/**
+ * Formats that owners, with their pets and visits, are imported from and exported to.
+ */
+public enum OwnerFileFormat {
+
+	/**
+	 * One visit per row with the {@link #CSV_COLUMNS}, the pet and visit columns left
+	 * empty for pets without visits and owners without pets. Exports add the
+	 * {@code ownerId}, {@code petId} and {@code visitId}, which imports ignore.
+	 */
+	CSV("csv"),
+
+	/**
+	 * One owner per line, with its pets and visits, in the format of the JSON API.
+	 */
+	NDJSON("ndjson");
+
+	static final List<String> CSV_COLUMNS = List.of("firstName", "lastName", "address", "city", "telephone", "petName",
+			"petBirthDate", "petType", "visitDate", "visitDescription");
+
+	private final String extension;
+
+	OwnerFileFormat(String extension) {
+		this.extension = extension;
+	}
+
+	public String getExtension() {
+		return this.extension;
+	}
+
+	/**
+	 * The format of a file by its extension: {@code .csv} for CSV, anything else for
+	 * NDJSON, either of them possibly followed by {@code .gz}.
+	 */
+	static OwnerFileFormat of(String fileName) {
+		String name = fileName.toLowerCase();
+		if (isGzip(name)) {
+			name = name.substring(0, name.length() - ".gz".length());
+		}
+		return name.endsWith("." + CSV.extension) ? CSV : NDJSON;
+	}
+
+	static boolean isGzip(String fileName) {
+		return fileName.toLowerCase().endsWith(".gz");
+	}
+
+}
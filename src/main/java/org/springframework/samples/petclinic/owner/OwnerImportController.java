@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Imports owners, with their pets and visits, posted as CSV or NDJSON. The body is read
+ * while it is being imported, and the answer is the {@link OwnerImportReport}.
+ */
+@RestController
+class OwnerImportController {
+
+	private final OwnerImporter importer;
+
+	public OwnerImportController(OwnerImporter importer) {
+		this.importer = importer;
+	}
+
+	@PostMapping(path = "/owners/import", consumes = "text/csv")
+	public OwnerImportReport importCsv(InputStream body) throws IOException {
+		return this.importer.importOwners(body, OwnerFileFormat.CSV);
+	}
+
+	@PostMapping(path = "/owners/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public OwnerImportReport importNdjson(InputStream body) throws IOException {
+		return this.importer.importOwners(body, OwnerFileFormat.NDJSON);
+	}
+
+}
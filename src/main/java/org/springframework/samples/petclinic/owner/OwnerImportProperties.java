@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the {@link OwnerImporter}.
+ */
+@ConfigurationProperties("petclinic.import")
+public class OwnerImportProperties {
+
+	/**
+	 * Number of owners, with their pets and visits, saved per transaction. A failing
+	 * transaction rejects all of its owners.
+	 */
+	private int chunkSize = 500;
+
+	/**
+	 * Number of rejected rows reported with their error, further ones are only counted.
+	 */
+	private int maxErrors = 1000;
+
+	/**
+	 * CSV ({@code .csv}) or NDJSON file to import on startup.
+	 */
+	private String file;
+
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public int getMaxErrors() {
+		return this.maxErrors;
+	}
+
+	public void setMaxErrors(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	public String getFile() {
+		return this.file;
+	}
+
+	public void setFile(String file) {
+		this.file = file;
+	}
+
+}
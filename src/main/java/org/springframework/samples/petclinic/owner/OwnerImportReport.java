@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.core.style.ToStringCreator;
+
+/**
+ * Outcome of an import by the {@link OwnerImporter}: what was saved, which rows were
+ * rejected and why, and how long it took.
+ */
+public class OwnerImportReport {
+
+	private final int maxErrors;
+
+	private int owners;
+
+	private int pets;
+
+	private int visits;
+
+	private int rejected;
+
+	private final List<RowError> errors = new ArrayList<>();
+
+	private long millis;
+
+	OwnerImportReport(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * The number of owners saved.
+	 */
+	public int getOwners() {
+		return this.owners;
+	}
+
+	/**
+	 * The number of pets saved with the owners.
+	 */
+	public int getPets() {
+		return this.pets;
+	}
+
+	/**
+	 * The number of visits saved with the pets.
+	 */
+	public int getVisits() {
+		return this.visits;
+	}
+
+	/**
+	 * The number of owners rejected, none of their pets and visits are saved.
+	 */
+	public int getRejected() {
+		return this.rejected;
+	}
+
+	/**
+	 * Why owners were rejected, by line of the input. Limited to the first
+	 * {@link OwnerImportProperties#getMaxErrors() max-errors} ones.
+	 */
+	public List<RowError> getErrors() {
+		return Collections.unmodifiableList(this.errors);
+	}
+
+	public long getMillis() {
+		return this.millis;
+	}
+
+	public double getOwnersPerSecond() {
+		return this.millis == 0 ? this.owners : this.owners * 1000.0 / this.millis;
+	}
+
+	void saved(Owner owner) {
+		this.owners++;
+		for (Pet pet : owner.getPets()) {
+			this.pets++;
+			this.visits += pet.getVisits().size();
+		}
+	}
+
+	void rejected(long line, String message) {
+		this.rejected++;
+		if (this.errors.size() < this.maxErrors) {
+			this.errors.add(new RowError(line, message));
+		}
+	}
+
+	void finished(long millis) {
+		this.millis = millis;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringCreator(this).append("owners", this.owners).append("pets", this.pets)
+				.append("visits", this.visits).append("rejected", this.rejected).append("millis", this.millis)
+				.toString();
+	}
+
+	/**
+	 * Why the owner starting at the given line of the input was rejected.
+	 */
+	public record RowError(long line, String message) {
+
+	}
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.samples.petclinic.owner.OwnerResource.PetResource;
+import org.springframework.samples.petclinic.owner.OwnerResource.VisitResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Imports owners with their pets and visits from CSV or NDJSON, reading the input as a
+ * stream so that files of any size can be imported. Each owner is validated as the web
+ * forms do, and rejected with its pets and visits if anything is wrong with it; the
+ * others are saved {@link OwnerImportProperties#getChunkSize() a chunk} per transaction.
+ * A chunk the database refuses is saved again one owner at a time, so that only the
+ * owners it refuses are rejected.
+ * <p>
+ * NDJSON has one owner per line, in the format of the JSON API. CSV has one visit per row
+ * with the columns {@link OwnerFileFormat#CSV_COLUMNS}: the owner's, then the pet's and
+ * the visit's, which may be left empty. Consecutive rows of the same owner make up its
+ * pets, and those of the same pet its visits. Pet types are matched by name against the
+ * existing ones. Imported owners are not announced one by one, the search index is
+ * rebuilt once at the end instead.
+ * <p>
+ * Besides {@code POST /owners/import}, a file can be imported on startup with
+ * {@code --petclinic.import.file=owners.csv}, gzipped or not.
+ */
+@Component
+@EnableConfigurationProperties(OwnerImportProperties.class)
+public class OwnerImporter implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(OwnerImporter.class);
+
+	private final OwnerRepository owners;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Validator validator;
+
+	private final ObjectMapper objectMapper;
+
+	private final OwnerNameIndex ownerNames;
+
+	private final OwnerSearchIndex searchIndex;
+
+	private final OwnerImportProperties properties;
+
+	public OwnerImporter(OwnerRepository owners, EntityManager entityManager, TransactionTemplate transactionTemplate,
+			Validator validator, ObjectMapper objectMapper, OwnerNameIndex ownerNames, OwnerSearchIndex searchIndex,
+			OwnerImportProperties properties) {
+		this.owners = owners;
+		this.entityManager = entityManager;
+		this.transactionTemplate = transactionTemplate;
+		this.validator = validator;
+		this.objectMapper = objectMapper;
+		this.ownerNames = ownerNames;
+		this.searchIndex = searchIndex;
+		this.properties = properties;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		if (this.properties.getFile() != null) {
+			String file = this.properties.getFile();
+			try (InputStream input = Files.newInputStream(Path.of(file))) {
+				importOwners(OwnerFileFormat.isGzip(file) ? new GZIPInputStream(input) : input,
+						OwnerFileFormat.of(file));
+			}
+		}
+	}
+
+	/**
+	 * Import the owners read from the given input, which is left open.
+	 * @param input the CSV or NDJSON, in UTF-8
+	 * @param format the format of the input
+	 * @return what was imported and what was rejected
+	 * @throws IOException if the input cannot be read
+	 */
+	public OwnerImportReport importOwners(InputStream input, OwnerFileFormat format) throws IOException {
+		long start = System.currentTimeMillis();
+		Chunks chunks = new Chunks(new OwnerImportReport(this.properties.getMaxErrors()));
+		Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+		if (format == OwnerFileFormat.CSV) {
+			readCsv(reader, chunks);
+		}
+		else {
+			readNdjson(new BufferedReader(reader), chunks);
+		}
+		chunks.flush();
+		OwnerImportReport report = chunks.report;
+		if (report.getOwners() > 0) {
+			this.searchIndex.load();
+		}
+		report.finished(System.currentTimeMillis() - start);
+		logger.info(String.format("Imported %d owners, %d pets and %d visits in %d ms (%.0f owners/s), rejected %d",
+				report.getOwners(), report.getPets(), report.getVisits(), report.getMillis(),
+				report.getOwnersPerSecond(), report.getRejected()));
+		return report;
+	}
+
+	private void readNdjson(BufferedReader reader, Consumer<Row> rows) throws IOException {
+		long line = 0;
+		for (String json = reader.readLine(); json != null; json = reader.readLine()) {
+			line++;
+			if (json.isBlank()) {
+				continue;
+			}
+			try {
+				rows.accept(new Row(line, this.objectMapper.readValue(json, OwnerResource.class), null));
+			}
+			catch (JacksonException ex) {
+				rows.accept(new Row(line, null, "unreadable: " + ex.getOriginalMessage()));
+			}
+		}
+	}
+
+	/**
+	 * Reads the CSV rows, grouping the consecutive rows of the same owner, and of the
+	 * same pet within it.
+	 */
+	private void readCsv(Reader reader, Consumer<Row> rows) throws IOException {
+		MappingIterator<Map<String, String>> values = new CsvMapper().readerForMapOf(String.class)
+				.with(CsvSchema.emptySchema().withHeader()).readValues(reader);
+		CsvOwner owner = null;
+		long line = 1;
+		while (true) {
+			Map<String, String> row;
+			try {
+				if (!values.hasNextValue()) {
+					break;
+				}
+				row = values.nextValue();
+			}
+			catch (JacksonException ex) {
+				// the rest of the input cannot be relied upon
+				rows.accept(new Row(line + 1, null, "unreadable: " + ex.getOriginalMessage()));
+				break;
+			}
+			line++;
+			List<String> key = OwnerFileFormat.CSV_COLUMNS.subList(0, 5).stream().map(column -> value(row, column))
+					.toList();
+			if (owner == null || !owner.key.equals(key)) {
+				if (owner != null) {
+					rows.accept(owner.row());
+				}
+				owner = new CsvOwner(line, key);
+			}
+			owner.add(row);
+		}
+		if (owner != null) {
+			rows.accept(owner.row());
+		}
+	}
+
+	private static String value(Map<String, String> values, String column) {
+		String value = values.get(column);
+		return value == null || value.isBlank() ? null : value.strip();
+	}
+
+	/**
+	 * Turn what was read into an owner with its pets and visits, as long as all of them
+	 * are valid.
+	 */
+	private Owner owner(OwnerResource resource, Map<String, PetType> types, List<String> errors) {
+		Owner owner = new Owner();
+		owner.setFirstName(resource.firstName());
+		owner.setLastName(resource.lastName());
+		owner.setAddress(resource.address());
+		owner.setCity(resource.city());
+		owner.setTelephone(resource.telephone());
+		violations(owner, "", errors);
+		if (resource.pets() == null) {
+			return owner;
+		}
+		for (PetResource petResource : resource.pets()) {
+			String prefix = "pet " + petResource.name() + ": ";
+			if (petResource.name() != null && owner.getPet(petResource.name()) != null) {
+				errors.add(prefix + "name is used more than once");
+				continue;
+			}
+			Pet pet = new Pet();
+			pet.setName(petResource.name());
+			pet.setBirthDate(petResource.birthDate());
+			pet.setType(petResource.type() == null ? null : types.get(petResource.type().toLowerCase()));
+			boolean unknownType = petResource.type() != null && pet.getType() == null;
+			if (unknownType) {
+				errors.add(prefix + "type " + petResource.type() + " is unknown");
+			}
+			Errors petErrors = new BeanPropertyBindingResult(pet, "pet");
+			new PetValidator().validate(pet, petErrors);
+			petErrors.getFieldErrors().stream().filter(error -> !unknownType || !error.getField().equals("type"))
+					.forEach(error -> errors.add(prefix + error.getField() + " " + error.getCode()));
+			owner.addPet(pet);
+			if (petResource.visits() != null) {
+				for (VisitResource visitResource : petResource.visits()) {
+					Visit visit = new Visit();
+					if (visitResource.date() != null) {
+						visit.setDate(visitResource.date());
+					}
+					visit.setDescription(visitResource.description());
+					violations(visit, prefix + "visit on " + visit.getDate() + ": ", errors);
+					pet.addVisit(visit);
+				}
+			}
+		}
+		return owner;
+	}
+
+	private void violations(Object object, String prefix, List<String> errors) {
+		for (ConstraintViolation<Object> violation : this.validator.validate(object)) {
+			errors.add(prefix + violation.getPropertyPath() + " " + violation.getMessage());
+		}
+	}
+
+	/**
+	 * Save the owners of a chunk in one transaction. If that fails, they are saved again
+	 * one per transaction, so that only those that cannot be saved are rejected.
+	 */
+	private void save(List<Owner> chunk, List<Long> lines, OwnerImportReport report) {
+		try {
+			persist(chunk);
+		}
+		catch (RuntimeException ex) {
+			if (chunk.size() == 1) {
+				logger.warn("Could not save the owner from line " + lines.get(0), ex);
+				report.rejected(lines.get(0), "not saved: " + ex.getMessage());
+				return;
+			}
+			logger.debug("Could not save the owners from line " + lines.get(0) + ", saving them one by one", ex);
+			for (int i = 0; i < chunk.size(); i++) {
+				save(List.of(chunk.get(i)), List.of(lines.get(i)), report);
+			}
+			return;
+		}
+		for (Owner owner : chunk) {
+			report.saved(owner);
+			this.ownerNames.put(owner.getId(), owner.getLastName());
+		}
+	}
+
+	/**
+	 * Persist the given owners with their pets and visits, or none of them. If that fails
+	 * the ids they were given are taken back, so that they can be persisted again.
+	 */
+	private void persist(List<Owner> owners) {
+		try {
+			this.transactionTemplate.executeWithoutResult(status -> owners.forEach(this.entityManager::persist));
+		}
+		catch (RuntimeException ex) {
+			for (Owner owner : owners) {
+				owner.setId(null);
+				for (Pet pet : owner.getPets()) {
+					pet.setId(null);
+					pet.getVisits().forEach(visit -> visit.setId(null));
+				}
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * What was read for one owner: the owner, or why it cannot be read.
+	 */
+	private record Row(long line, OwnerResource owner, String error) {
+
+	}
+
+	/**
+	 * Validates the rows it is given and saves the valid ones a chunk at a time.
+	 */
+	private class Chunks implements Consumer<Row> {
+
+		private final OwnerImportReport report;
+
+		private final Map<String, PetType> types;
+
+		private final List<Owner> chunk = new ArrayList<>();
+
+		private final List<Long> lines = new ArrayList<>();
+
+		Chunks(OwnerImportReport report) {
+			this.report = report;
+			this.types = owners.findPetTypes().stream()
+					.collect(Collectors.toMap(type -> type.getName().toLowerCase(), Function.identity()));
+		}
+
+		@Override
+		public void accept(Row row) {
+			if (row.error() != null) {
+				this.report.rejected(row.line(), row.error());
+				return;
+			}
+			List<String> errors = new ArrayList<>();
+			Owner owner = owner(row.owner(), this.types, errors);
+			if (!errors.isEmpty()) {
+				this.report.rejected(row.line(), String.join(", ", errors));
+				return;
+			}
+			this.chunk.add(owner);
+			this.lines.add(row.line());
+			if (this.chunk.size() >= properties.getChunkSize()) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (!this.chunk.isEmpty()) {
+				save(this.chunk, this.lines, this.report);
+				this.chunk.clear();
+				this.lines.clear();
+			}
+		}
+
+	}
+
+	/**
+	 * The rows of an owner in CSV, with the first reason to reject it, if any.
+	 */
+	private static class CsvOwner {
+
+		private final long line;
+
+		private final List<String> key;
+
+		private final Map<String, PetResource> pets = new LinkedHashMap<>();
+
+		private String error;
+
+		CsvOwner(long line, List<String> key) {
+			this.line = line;
+			this.key = key;
+		}
+
+		void add(Map<String, String> values) {
+			String petName = value(values, "petName");
+			if (petName != null) {
+				PetResource pet = this.pets.get(petName);
+				if (pet == null) {
+					pet = new PetResource(null, petName, date(values, "petBirthDate"), value(values, "petType"),
+							new ArrayList<>());
+					this.pets.put(petName, pet);
+				}
+				LocalDate visitDate = date(values, "visitDate");
+				String visitDescription = value(values, "visitDescription");
+				if (visitDate != null || visitDescription != null) {
+					pet.visits().add(new VisitResource(null, visitDate, visitDescription));
+				}
+			}
+		}
+
+		private LocalDate date(Map<String, String> values, String column) {
+			String value = value(values, column);
+			try {
+				return value == null ? null : LocalDate.parse(value);
+			}
+			catch (DateTimeParseException ex) {
+				if (this.error == null) {
+					this.error = column + " " + value + " is not a date";
+				}
+				return null;
+			}
+		}
+
+		Row row() {
+			if (this.error != null) {
+				return new Row(this.line, null, this.error);
+			}
+			return new Row(this.line, new OwnerResource(null, this.key.get(0), this.key.get(1), this.key.get(2),
+					this.key.get(3), this.key.get(4), new ArrayList<>(this.pets.values())), null);
+		}
+
+	}
+
+}
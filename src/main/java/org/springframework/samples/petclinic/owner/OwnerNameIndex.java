@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the owners' last names, so that the find form can suggest names as
+ * they are typed without querying the database. It is loaded once the application has
+ * started and kept up to date by {@link OwnerController} as owners are added and edited;
+ * owners changed by other means show up after a restart.
+ * <p>
+ * Last names are keyed by their lower-case form in a sorted concurrent map, so the names
+ * that start with a prefix are a range of keys, read without locking.
+ */
+@Component
+public class OwnerNameIndex {
+
+	private final OwnerRepository owners;
+
+	private final ConcurrentNavigableMap<String, LastName> lastNames = new ConcurrentSkipListMap<>();
+
+	private final Map<Integer, String> keysByOwnerId = new ConcurrentHashMap<>();
+
+	public OwnerNameIndex(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	/**
+	 * Index the last names of all owners. An owner {@link #put(Integer, String) put}
+	 * while the names are being read keeps the name it was put with, since the name read
+	 * may be from before it was edited.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		for (OwnerRepository.OwnerName owner : this.owners.findAllNames()) {
+			putIfAbsent(owner.getId(), owner.getLastName());
+		}
+	}
+
+	/**
+	 * Index the last name of an added owner, or the new last name of an edited one.
+	 * @param ownerId the id of the owner
+	 * @param lastName the last name of the owner
+	 */
+	public synchronized void put(Integer ownerId, String lastName) {
+		String key = key(lastName);
+		String previousKey = this.keysByOwnerId.put(ownerId, key);
+		if (previousKey != null && !previousKey.equals(key)) {
+			LastName previous = this.lastNames.get(previousKey);
+			previous.ownerIds.remove(ownerId);
+			if (previous.ownerIds.isEmpty()) {
+				this.lastNames.remove(previousKey);
+			}
+		}
+		this.lastNames.computeIfAbsent(key, k -> new LastName(lastName, ConcurrentHashMap.newKeySet())).ownerIds
+				.add(ownerId);
+	}
+
+	private synchronized void putIfAbsent(Integer ownerId, String lastName) {
+		if (!this.keysByOwnerId.containsKey(ownerId)) {
+			put(ownerId, lastName);
+		}
+	}
+
+	/**
+	 * Suggest the last names that start with the given prefix, ignoring case.
+	 * @param prefix the start of the last name
+	 * @param limit the maximum number of names to return
+	 * @return the matching last names in alphabetical order
+	 */
+	public List<String> suggest(String prefix, int limit) {
+		String from = key(prefix);
+		return this.lastNames.tailMap(from).entrySet().stream().takeWhile(entry -> entry.getKey().startsWith(from))
+				.limit(limit).map(entry -> entry.getValue().name()).toList();
+	}
+
+	private static String key(String lastName) {
+		return lastName == null ? "" : lastName.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * A last name as first spelled, and the owners who have it.
+	 */
+	private record LastName(String name, Set<Integer> ownerIds) {
+	}
+
+}
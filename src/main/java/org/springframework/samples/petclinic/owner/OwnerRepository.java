@@ -15,10 +15,16 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
@@ -38,40 +44,208 @@ import org.springframework.transaction.annotation.Transactional;
 public interface OwnerRepository extends Repository<Owner, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Query condition matching owners whose last name starts with {@code :lastName},
+	 * ignoring case: the lower-cased search term is compared with
+	 * {@code search_last_name}, a lower-cased copy of the last name that is indexed on
+	 * every supported database.
+	 */
+	String LAST_NAME_STARTS_WITH = "owner.searchLastName LIKE :#{#lastName.toLowerCase(T(java.util.Locale).ROOT)}%";
+
+	/**
+	 * The lower-cased {@code :afterLastName} keyset cursor, to compare with
+	 * {@code search_last_name}.
+	 */
+	String AFTER_LAST_NAME = ":#{#afterLastName.toLowerCase(T(java.util.Locale).ROOT)}";
+
+	/**
+	 * Retrieve all {@link PetType}s from the data store. The result is cached and shared
+	 * between callers, so it must not be modified.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
 	@Transactional(readOnly = true)
+	@Cacheable("petTypes")
 	List<PetType> findPetTypes();
 
 	/**
 	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
-	 * whose last name <i>starts</i> with the given name.
+	 * whose last name <i>starts</i> with the given name, ignoring case.
 	 * @param lastName Value to search for
 	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
 	 * found)
 	 */
-
-	@Query("SELECT DISTINCT owner FROM Owner owner left join  owner.pets WHERE owner.lastName LIKE :lastName% ")
+	@Query(value = "SELECT owner FROM Owner owner WHERE " + LAST_NAME_STARTS_WITH,
+			countQuery = "SELECT count(owner) FROM Owner owner WHERE " + LAST_NAME_STARTS_WITH)
 	@Transactional(readOnly = true)
 	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
 
 	/**
-	 * Retrieve an {@link Owner} from the data store by id.
+	 * Retrieve a page of {@link OwnerSummary owner summaries} whose last name
+	 * <i>starts</i> with the given name ignoring case, ordered by last name. Only the
+	 * owners' own columns are read; pet names have to be added with
+	 * {@link #findPetNamesByOwnerIds(Collection)}.
+	 * @param lastName Value to search for
+	 * @return a page of matching {@link OwnerSummary owner summaries}
+	 */
+	@Query(value = "SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(owner.id, owner.firstName, "
+			+ "owner.lastName, owner.address, owner.city, owner.telephone) FROM Owner owner " + "WHERE "
+			+ LAST_NAME_STARTS_WITH + " ORDER BY owner.searchLastName, owner.id",
+			countQuery = "SELECT count(owner) FROM Owner owner WHERE " + LAST_NAME_STARTS_WITH)
+	@Transactional(readOnly = true)
+	Page<OwnerSummary> findSummariesByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the first {@link OwnerSummary owner summaries} whose last name
+	 * <i>starts</i> with the given name, ordered by last name, like
+	 * {@link #findSummariesByLastName(String, Pageable)} but without counting the
+	 * matching rows: one more row than asked for tells whether there are more. The
+	 * following ones are read with
+	 * {@link #findSummariesByLastNameAfter(String, String, Integer, Pageable)}.
+	 * @param lastName Value to search for
+	 * @param pageable the number of results to return, always for the first page
+	 * @return a slice of matching {@link OwnerSummary owner summaries}
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(owner.id, owner.firstName, "
+			+ "owner.lastName, owner.address, owner.city, owner.telephone) FROM Owner owner WHERE "
+			+ LAST_NAME_STARTS_WITH + " ORDER BY owner.searchLastName, owner.id")
+	@Transactional(readOnly = true)
+	Slice<OwnerSummary> findSummarySliceByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the {@link OwnerSummary owner summaries} whose last name <i>starts</i>
+	 * with the given name and that sort after the given last name and id, ordered by last
+	 * name. This is the keyset (seek) variant of
+	 * {@link #findSummariesByLastName(String, Pageable)}: it never counts the matching
+	 * rows and its cost does not depend on how deep the requested page is.
+	 * @param lastName Value to search for
+	 * @param afterLastName last name of the last owner of the previous page
+	 * @param afterId id of the last owner of the previous page
+	 * @param pageable the number of results to return, always for the first page
+	 * @return a slice of matching {@link OwnerSummary owner summaries}
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(owner.id, owner.firstName, "
+			+ "owner.lastName, owner.address, owner.city, owner.telephone) FROM Owner owner " + "WHERE "
+			+ LAST_NAME_STARTS_WITH + " AND (owner.searchLastName > " + AFTER_LAST_NAME + " OR (owner.searchLastName = "
+			+ AFTER_LAST_NAME + " AND owner.id > :afterId)) " + "ORDER BY owner.searchLastName, owner.id")
+	@Transactional(readOnly = true)
+	Slice<OwnerSummary> findSummariesByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId, Pageable pageable);
+
+	/**
+	 * Retrieve the names of the pets of the given owners, ordered by pet name. Reads the
+	 * pet names only, so neither {@link Pet}s nor their visits are loaded.
+	 * @param ownerIds the ids of the owners whose pets to look up
+	 * @return one {@link PetName} per pet
+	 */
+	@Query("SELECT owner.id AS ownerId, pet.name AS name FROM Owner owner JOIN owner.pets pet "
+			+ "WHERE owner.id IN :ownerIds ORDER BY pet.name")
+	@Transactional(readOnly = true)
+	List<PetName> findPetNamesByOwnerIds(@Param("ownerIds") Collection<Integer> ownerIds);
+
+	/**
+	 * Retrieve the id and last name of every {@link Owner}, without loading the owners.
+	 * @return one {@link OwnerName} per owner
+	 */
+	@Query("SELECT owner.id AS id, owner.lastName AS lastName FROM Owner owner")
+	@Transactional(readOnly = true)
+	List<OwnerName> findAllNames();
+
+	/**
+	 * Retrieve an {@link Owner} from the data store by id, together with its pets and
+	 * their visits. The result is cached until the owner is {@link #save(Owner) saved}
+	 * again and shared between callers, so it must not be modified.
 	 * @param id the id to search for
 	 * @return the {@link Owner} if found
 	 */
-	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@EntityGraph(Owner.WITH_PETS_AND_VISITS_GRAPH)
 	@Transactional(readOnly = true)
+	@Cacheable("owners")
 	Owner findById(@Param("id") Integer id);
 
 	/**
-	 * Save an {@link Owner} to the data store, either inserting or updating it.
+	 * Retrieve an {@link Owner} from the data store by id, together with its pets but
+	 * without their visits.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@EntityGraph(Owner.WITH_PETS_GRAPH)
+	@Transactional(readOnly = true)
+	Owner findWithPetsById(@Param("id") Integer id);
+
+	/**
+	 * Retrieve the {@link Owner#getVersion() version} of an {@link Owner}, without
+	 * loading it.
+	 * @param id the id to search for
+	 * @return the version, or {@literal null} if there is no such owner
+	 */
+	@Query("SELECT owner.version FROM Owner owner WHERE owner.id =:id")
+	@Transactional(readOnly = true)
+	Integer findVersionById(@Param("id") Integer id);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids, together with their pets but
+	 * without their visits, in no particular order.
+	 * @param ids the ids to search for
+	 * @return the {@link Owner}s found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id IN :ids")
+	@EntityGraph(Owner.WITH_PETS_GRAPH)
+	@Transactional(readOnly = true)
+	List<Owner> findAllWithPetsById(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids, together with their pets and their
+	 * visits, in no particular order.
+	 * @param ids the ids to search for
+	 * @return the {@link Owner}s found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id IN :ids")
+	@EntityGraph(Owner.WITH_PETS_AND_VISITS_GRAPH)
+	@Transactional(readOnly = true)
+	List<Owner> findAllWithPetsAndVisitsById(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve an {@link Owner} from the data store by id, without its pets.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@EntityGraph(Owner.SUMMARY_GRAPH)
+	@Transactional(readOnly = true)
+	Owner findSummaryById(@Param("id") Integer id);
+
+	/**
+	 * Retrieve a {@link Pet} of the given {@link Owner} from the data store, together
+	 * with its type and visits. The owner and its other pets are not loaded.
+	 * @param ownerId the id of the owner of the pet
+	 * @param petId the id of the pet to search for
+	 * @return the {@link Pet} if found and owned by the given owner
+	 */
+	@Query("SELECT pet FROM Owner owner JOIN owner.pets pet JOIN FETCH pet.type LEFT JOIN FETCH pet.visits "
+			+ "WHERE owner.id = :ownerId AND pet.id = :petId")
+	@Transactional(readOnly = true)
+	Pet findPetById(@Param("ownerId") Integer ownerId, @Param("petId") Integer petId);
+
+	/**
+	 * Save an {@link Owner} to the data store, either inserting or updating it. This
+	 * includes its pets and visits, so the cached details of the owner are evicted.
 	 * @param owner the {@link Owner} to save
 	 */
+	@CacheEvict(cacheNames = "owners", key = "#p0.id")
 	void save(Owner owner);
 
+	/**
+	 * Increment the {@link Owner#getVersion() version} of an {@link Owner} whose pets or
+	 * visits changed without the owner itself being updated. Does not change an owner
+	 * loaded in the same transaction, which must not be saved afterwards.
+	 * @param id the id of the owner
+	 */
+	@Modifying
+	@Query("UPDATE Owner owner SET owner.version = owner.version + 1 WHERE owner.id =:id")
+	void incrementVersion(@Param("id") Integer id);
+
 	/**
 	 * Returnes all the owners from data store
 	 **/
@@ -79,4 +253,26 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	@Transactional(readOnly = true)
 	Page<Owner> findAll(Pageable pageable);
 
+	/**
+	 * Projection of the id and last name of an {@link Owner}.
+	 */
+	interface OwnerName {
+
+		Integer getId();
+
+		String getLastName();
+
+	}
+
+	/**
+	 * Projection of a pet name together with the id of the owning {@link Owner}.
+	 */
+	interface PetName {
+
+		Integer getOwnerId();
+
+		String getName();
+
+	}
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * An {@link Owner} as returned by the {@code /api/v1} endpoints of
+ * {@link OwnerApiController}. Fields that are not {@link FieldSelection selected} are
+ * {@literal null}, and fields that are {@literal null} are left out of the response.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OwnerResource(Integer id, String firstName, String lastName, String address, String city,
+		String telephone, List<PetResource> pets) {
+
+	/**
+	 * The paths that can be selected, nested ones included.
+	 */
+	static final List<String> FIELDS = paths(
+			List.of("id", "firstName", "lastName", "address", "city", "telephone", "pets"), "pets", PetResource.FIELDS);
+
+	/**
+	 * Map an owner summary, whose pets are never included.
+	 */
+	static OwnerResource of(OwnerSummary owner, FieldSelection fields) {
+		return new OwnerResource(select(fields, "id", owner::getId), select(fields, "firstName", owner::getFirstName),
+				select(fields, "lastName", owner::getLastName), select(fields, "address", owner::getAddress),
+				select(fields, "city", owner::getCity), select(fields, "telephone", owner::getTelephone), null);
+	}
+
+	/**
+	 * Map an owner. Its pets are only read if they are selected, and their visits only if
+	 * those are.
+	 */
+	static OwnerResource of(Owner owner, FieldSelection fields) {
+		return new OwnerResource(select(fields, "id", owner::getId), select(fields, "firstName", owner::getFirstName),
+				select(fields, "lastName", owner::getLastName), select(fields, "address", owner::getAddress),
+				select(fields, "city", owner::getCity), select(fields, "telephone", owner::getTelephone),
+				select(fields, "pets", () -> PetResource.of(owner.getPets(), fields.nested("pets"))));
+	}
+
+	private static <T> T select(FieldSelection fields, String field, Supplier<T> value) {
+		return fields.includes(field) ? value.get() : null;
+	}
+
+	private static List<String> paths(List<String> fields, String nestedField, List<String> nestedFields) {
+		List<String> paths = new ArrayList<>(fields);
+		nestedFields.forEach(nested -> paths.add(nestedField + "." + nested));
+		return List.copyOf(paths);
+	}
+
+	/**
+	 * A {@link Pet} of an owner.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public record PetResource(Integer id, String name, LocalDate birthDate, String type, List<VisitResource> visits) {
+
+		static final List<String> FIELDS = paths(List.of("id", "name", "birthDate", "type", "visits"), "visits",
+				VisitResource.FIELDS);
+
+		static List<PetResource> of(Iterable<Pet> pets, FieldSelection fields) {
+			List<PetResource> resources = new ArrayList<>();
+			pets.forEach(pet -> resources.add(of(pet, fields)));
+			return resources;
+		}
+
+		static PetResource of(Pet pet, FieldSelection fields) {
+			return new PetResource(select(fields, "id", pet::getId), select(fields, "name", pet::getName),
+					select(fields, "birthDate", pet::getBirthDate),
+					select(fields, "type", () -> pet.getType() == null ? null : pet.getType().getName()),
+					select(fields, "visits", () -> VisitResource.of(pet.getVisits(), fields.nested("visits"))));
+		}
+
+	}
+
+	/**
+	 * A {@link Visit} of a pet.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public record VisitResource(Integer id, LocalDate date, String description) {
+
+		static final List<String> FIELDS = List.of("id", "date", "description");
+
+		static List<VisitResource> of(Iterable<Visit> visits, FieldSelection fields) {
+			List<VisitResource> resources = new ArrayList<>();
+			visits.forEach(visit -> resources.add(new VisitResource(select(fields, "id", visit::getId),
+					select(fields, "date", visit::getDate), select(fields, "description", visit::getDescription))));
+			return resources;
+		}
+
+	}
+
+	/**
+	 * A page of owners, and the cursor of the next page if there is one.
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public record Listing(List<OwnerResource> owners, String next) {
+
+	}
+
+}
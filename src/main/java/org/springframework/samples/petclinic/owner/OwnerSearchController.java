@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Full-text search across owners, pets and visit descriptions, ranked by relevance.
+ */
+@Controller
+class OwnerSearchController {
+
+	private static final int PAGE_SIZE = 10;
+
+	private final OwnerSearchIndex index;
+
+	public OwnerSearchController(OwnerSearchIndex index) {
+		this.index = index;
+	}
+
+	@GetMapping("/owners/search")
+	public String showResults(@RequestParam(defaultValue = "") String q, @RequestParam(defaultValue = "1") int page,
+			Model model) {
+		Page<OwnerSearchResult> results = search(q, page);
+		model.addAttribute("q", q);
+		model.addAttribute("currentPage", results.getNumber() + 1);
+		model.addAttribute("totalPages", results.getTotalPages());
+		model.addAttribute("totalItems", results.getTotalElements());
+		model.addAttribute("listResults", results.getContent());
+		return "owners/searchResults";
+	}
+
+	@GetMapping(path = "/owners/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public Page<OwnerSearchResult> showResourcesResults(@RequestParam(defaultValue = "") String q,
+			@RequestParam(defaultValue = "1") int page) {
+		return search(q, page);
+	}
+
+	private Page<OwnerSearchResult> search(String q, int page) {
+		return this.index.search(q, PageRequest.of(Math.max(page, 1) - 1, PAGE_SIZE));
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.owner.OwnerSearchResult.Kind;
+import org.springframework.samples.petclinic.system.ReadFromPrimary;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+/**
+ * In-memory Lucene index of the owners, their pets and the pets' visits, for full-text
+ * search across names, addresses, telephone numbers and visit descriptions.
+ * <p>
+ * The index is built once the application has started. After that the documents of an
+ * owner are replaced whenever an {@link OwnerChangedEvent} is published, which happens
+ * when an owner is saved and when a visit is added. The owner is read again on another
+ * thread once the transaction has committed, so saving does not wait for the index and
+ * the index never sees uncommitted data. The index is kept, so it is read from the
+ * primary database and not from a read replica that may lag behind. Words are stemmed, so
+ * that "spayed" also finds "spay".
+ */
+@Component
+public class OwnerSearchIndex implements DisposableBean {
+
+	/**
+	 * Results beyond this rank are not returned, whatever the page.
+	 */
+	static final int MAX_RESULTS = 1000;
+
+	private static final String OWNER_ID = "ownerId";
+
+	private static final String KIND = "kind";
+
+	private static final String TITLE = "title";
+
+	private static final String DETAIL = "detail";
+
+	private static final String NAME = "name";
+
+	private static final String TEXT = "text";
+
+	private static final Map<String, Float> FIELD_WEIGHTS = Map.of(NAME, 2f, TEXT, 1f);
+
+	private final OwnerSearchRepository repository;
+
+	private final Analyzer analyzer = new EnglishAnalyzer();
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searchers;
+
+	/**
+	 * The owners being updated, mapped to whether they changed again since their rows
+	 * were last read.
+	 */
+	private final Map<Integer, Boolean> changedOwners = new ConcurrentHashMap<>();
+
+	public OwnerSearchIndex(OwnerSearchRepository repository) throws IOException {
+		this.repository = repository;
+		this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(this.analyzer));
+		this.searchers = new SearcherManager(this.writer, null);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@ReadFromPrimary
+	public void load() {
+		List<Document> documents = new ArrayList<>();
+		this.repository.findAllOwnerRows().forEach(row -> documents.add(document(row)));
+		this.repository.findAllPetRows().forEach(row -> documents.add(document(row)));
+		this.repository.findAllVisitRows().forEach(row -> documents.add(document(row)));
+		try {
+			this.writer.deleteAll();
+			this.writer.addDocuments(documents);
+			this.searchers.maybeRefresh();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Update the documents of a changed owner. Updates of the same owner do not overlap:
+	 * an owner that changes again while it is being updated is read once more by the
+	 * running update when it is done, instead of by a concurrent one that could finish
+	 * first and be overwritten with older rows. Changes that arrive meanwhile are
+	 * coalesced into that one read.
+	 */
+	@Async
+	@TransactionalEventListener(fallbackExecution = true)
+	@ReadFromPrimary
+	public void ownerChanged(OwnerChangedEvent event) {
+		Integer ownerId = event.ownerId();
+		if (this.changedOwners.put(ownerId, Boolean.TRUE) != null) {
+			// being updated, the running update reads it again
+			return;
+		}
+		try {
+			do {
+				this.changedOwners.put(ownerId, Boolean.FALSE);
+				update(ownerId);
+			}
+			while (!this.changedOwners.remove(ownerId, Boolean.FALSE));
+		}
+		catch (RuntimeException ex) {
+			this.changedOwners.remove(ownerId);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Replace the documents of an owner with what is now in the data store.
+	 * @param ownerId the id of the owner
+	 */
+	@ReadFromPrimary
+	public void update(Integer ownerId) {
+		List<Document> documents = new ArrayList<>();
+		this.repository.findOwnerRows(ownerId).forEach(row -> documents.add(document(row)));
+		this.repository.findPetRows(ownerId).forEach(row -> documents.add(document(row)));
+		this.repository.findVisitRows(ownerId).forEach(row -> documents.add(document(row)));
+		try {
+			this.writer.updateDocuments(new Term(OWNER_ID, ownerId.toString()), documents);
+			this.searchers.maybeRefresh();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Search owners, pets and visits for all the words of {@code text}, best match first.
+	 * Words may end with {@code *} to match as a prefix, and be quoted to match a phrase.
+	 * @param text the words to search for
+	 * @param pageable the page of results to return
+	 * @return the page of results, empty if {@code text} has no words to search for
+	 */
+	public Page<OwnerSearchResult> search(String text, Pageable pageable) {
+		Query query = parse(text);
+		if (query == null || pageable.getOffset() >= MAX_RESULTS) {
+			return Page.empty(pageable);
+		}
+		try {
+			IndexSearcher searcher = this.searchers.acquire();
+			try {
+				int end = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), MAX_RESULTS);
+				ScoreDoc[] hits = searcher.search(query, end).scoreDocs;
+				List<OwnerSearchResult> results = new ArrayList<>();
+				for (int i = (int) pageable.getOffset(); i < hits.length; i++) {
+					results.add(result(searcher.doc(hits[i].doc), hits[i].score));
+				}
+				return new PageImpl<>(results, pageable, Math.min(searcher.count(query), MAX_RESULTS));
+			}
+			finally {
+				this.searchers.release(searcher);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		this.searchers.close();
+		this.writer.close();
+	}
+
+	private Query parse(String text) {
+		if (!StringUtils.hasText(text)) {
+			return null;
+		}
+		SimpleQueryParser parser = new SimpleQueryParser(this.analyzer, FIELD_WEIGHTS);
+		parser.setDefaultOperator(BooleanClause.Occur.MUST);
+		// null when every word is a stop word
+		return parser.parse(text);
+	}
+
+	private static Document document(OwnerSearchRepository.OwnerRow row) {
+		String name = row.getFirstName() + " " + row.getLastName();
+		String detail = row.getAddress() + ", " + row.getCity() + ", " + row.getTelephone();
+		return document(Kind.OWNER, row.getOwnerId(), name, detail, name, detail);
+	}
+
+	private static Document document(OwnerSearchRepository.PetRow row) {
+		String detail = row.getType() + " of " + row.getFirstName() + " " + row.getLastName();
+		return document(Kind.PET, row.getOwnerId(), row.getName(), detail, row.getName(), row.getType());
+	}
+
+	private static Document document(OwnerSearchRepository.VisitRow row) {
+		String title = "Visit of " + row.getPetName() + " on " + row.getDate();
+		return document(Kind.VISIT, row.getOwnerId(), title, row.getDescription(), null,
+				row.getDescription() + " " + row.getPetName());
+	}
+
+	private static Document document(Kind kind, Integer ownerId, String title, String detail, String name,
+			String text) {
+		Document document = new Document();
+		document.add(new StringField(OWNER_ID, ownerId.toString(), Store.YES));
+		document.add(new StoredField(KIND, kind.name()));
+		document.add(new StoredField(TITLE, title));
+		document.add(new StoredField(DETAIL, detail));
+		if (name != null) {
+			document.add(new TextField(NAME, name, Store.NO));
+		}
+		document.add(new TextField(TEXT, text, Store.NO));
+		return document;
+	}
+
+	private static OwnerSearchResult result(Document document, float score) {
+		return new OwnerSearchResult(Kind.valueOf(document.get(KIND)), Integer.valueOf(document.get(OWNER_ID)),
+				document.get(TITLE), document.get(DETAIL), score);
+	}
+
+}
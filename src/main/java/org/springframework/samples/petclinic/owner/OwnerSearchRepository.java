@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads owners, pets and visits as flat rows for the {@link OwnerSearchIndex}, either all
+ * of them or those of one {@link Owner}, without loading any entity.
+ */
+public interface OwnerSearchRepository extends Repository<Owner, Integer> {
+
+	String OWNERS = "SELECT owner.id AS ownerId, owner.firstName AS firstName, owner.lastName AS lastName, "
+			+ "owner.address AS address, owner.city AS city, owner.telephone AS telephone FROM Owner owner";
+
+	String PETS = "SELECT owner.id AS ownerId, owner.firstName AS firstName, owner.lastName AS lastName, "
+			+ "pet.name AS name, type.name AS type FROM Owner owner JOIN owner.pets pet JOIN pet.type type";
+
+	String VISITS = "SELECT owner.id AS ownerId, pet.name AS petName, visit.date AS date, "
+			+ "visit.description AS description FROM Owner owner JOIN owner.pets pet JOIN pet.visits visit";
+
+	@Query(OWNERS)
+	@Transactional(readOnly = true)
+	List<OwnerRow> findAllOwnerRows();
+
+	@Query(OWNERS + " WHERE owner.id = :ownerId")
+	@Transactional(readOnly = true)
+	List<OwnerRow> findOwnerRows(@Param("ownerId") Integer ownerId);
+
+	@Query(PETS)
+	@Transactional(readOnly = true)
+	List<PetRow> findAllPetRows();
+
+	@Query(PETS + " WHERE owner.id = :ownerId")
+	@Transactional(readOnly = true)
+	List<PetRow> findPetRows(@Param("ownerId") Integer ownerId);
+
+	@Query(VISITS)
+	@Transactional(readOnly = true)
+	List<VisitRow> findAllVisitRows();
+
+	@Query(VISITS + " WHERE owner.id = :ownerId")
+	@Transactional(readOnly = true)
+	List<VisitRow> findVisitRows(@Param("ownerId") Integer ownerId);
+
+	interface OwnerRow {
+
+		Integer getOwnerId();
+
+		String getFirstName();
+
+		String getLastName();
+
+		String getAddress();
+
+		String getCity();
+
+		String getTelephone();
+
+	}
+
+	interface PetRow {
+
+		Integer getOwnerId();
+
+		String getFirstName();
+
+		String getLastName();
+
+		String getName();
+
+		String getType();
+
+	}
+
+	interface VisitRow {
+
+		Integer getOwnerId();
+
+		String getPetName();
+
+		LocalDate getDate();
+
+		String getDescription();
+
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * One hit of a full-text search in the {@link OwnerSearchIndex}: an owner, a pet or a
+ * visit, and the owner it leads to.
+ * @param kind what was found
+ * @param ownerId the id of the owner, whose details page shows what was found
+ * @param title the name of the owner or pet, or the date and pet of the visit
+ * @param detail the rest of what was found, for display
+ * @param score the relevance of the hit, higher is better
+ */
+public record OwnerSearchResult(Kind kind, Integer ownerId, String title, String detail, float score) {
+
+	public enum Kind {
+
+		OWNER, PET, VISIT
+
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.system.ReadFromPrimary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Everything the owner, pet and visit controllers read or write, each call in a single
+ * transaction. What is returned is fully loaded for its view, as the persistence context
+ * is closed before the view is rendered (open-in-view is off): the connection is only
+ * held while the queries of a request run.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OwnerService {
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	private final ApplicationEventPublisher events;
+
+	public OwnerService(OwnerRepository owners, VisitRepository visits, ApplicationEventPublisher events) {
+		this.owners = owners;
+		this.visits = visits;
+		this.events = events;
+	}
+
+	/**
+	 * Find an owner without its pets, e.g. for the owner and pet forms.
+	 */
+	public Owner findOwner(int ownerId) {
+		return this.owners.findSummaryById(ownerId);
+	}
+
+	/**
+	 * Find an owner with its pets and their types, but no visits.
+	 */
+	public Owner findOwnerWithPets(int ownerId) {
+		return this.owners.findWithPetsById(ownerId);
+	}
+
+	/**
+	 * Find an owner with its pets and their visits, as shown on the owner details page.
+	 * They are cached, see {@link OwnerRepository#findById}, so they are read from the
+	 * primary database.
+	 */
+	@ReadFromPrimary
+	public Owner findOwnerDetails(int ownerId) {
+		return this.owners.findById(ownerId);
+	}
+
+	/**
+	 * Find the version of an owner, which changes with its details, see
+	 * {@link Owner#getVersion()}. It decides whether the owner details page is answered
+	 * with a 304, also right after a save, so it is read from the primary database.
+	 * @return the version, or {@literal null} if there is no such owner
+	 */
+	@ReadFromPrimary
+	public Integer findOwnerVersion(int ownerId) {
+		return this.owners.findVersionById(ownerId);
+	}
+
+	/**
+	 * Find a page of owners by the start of their last name, with the names of their
+	 * pets.
+	 */
+	public Page<OwnerSummary> findOwners(String lastName, Pageable pageable) {
+		Page<OwnerSummary> summaries = this.owners.findSummariesByLastName(lastName, pageable);
+		addPetNames(summaries.getContent());
+		return summaries;
+	}
+
+	/**
+	 * Find the owners that come after the given one by the start of their last name, with
+	 * the names of their pets.
+	 */
+	public Slice<OwnerSummary> findOwnersAfter(String lastName, String afterLastName, Integer afterId,
+			Pageable pageable) {
+		Slice<OwnerSummary> summaries = this.owners.findSummariesByLastNameAfter(lastName, afterLastName, afterId,
+				pageable);
+		addPetNames(summaries.getContent());
+		return summaries;
+	}
+
+	/**
+	 * Find the owners by the start of their last name without the names of their pets:
+	 * the first ones if {@code afterId} is {@literal null}, else the ones after the given
+	 * owner.
+	 */
+	public Slice<OwnerSummary> findOwnerSummaries(String lastName, String afterLastName, Integer afterId,
+			Pageable pageable) {
+		if (afterId == null) {
+			return this.owners.findSummarySliceByLastName(lastName, pageable);
+		}
+		return this.owners.findSummariesByLastNameAfter(lastName, afterLastName, afterId, pageable);
+	}
+
+	/**
+	 * Find the owners with the given ids and their pets, with the visits of the pets if
+	 * {@code withVisits}, in no particular order.
+	 */
+	public List<Owner> findOwnersWithPets(Collection<Integer> ownerIds, boolean withVisits) {
+		if (ownerIds.isEmpty()) {
+			return List.of();
+		}
+		return withVisits ? this.owners.findAllWithPetsAndVisitsById(ownerIds)
+				: this.owners.findAllWithPetsById(ownerIds);
+	}
+
+	/**
+	 * Find a pet of an owner with its type and visits.
+	 */
+	public Pet findPet(int ownerId, int petId) {
+		return this.owners.findPetById(ownerId, petId);
+	}
+
+	public Collection<PetType> findPetTypes() {
+		return this.owners.findPetTypes();
+	}
+
+	@Transactional
+	public void saveOwner(Owner owner) {
+		this.owners.save(owner);
+	}
+
+	/**
+	 * Copy the name, address, city and telephone of {@code details}, e.g. bound from the
+	 * owner form, to the owner with the given id. The owner is read again in this
+	 * transaction, so from the primary database with its current version, not from the
+	 * read replica the form may have been bound to.
+	 * @return {@literal false} if there is no such owner, in which case nothing is saved
+	 */
+	@Transactional
+	public boolean updateOwner(int ownerId, Owner details) {
+		Owner owner = this.owners.findSummaryById(ownerId);
+		if (owner == null) {
+			return false;
+		}
+		owner.setFirstName(details.getFirstName());
+		owner.setLastName(details.getLastName());
+		owner.setAddress(details.getAddress());
+		owner.setCity(details.getCity());
+		owner.setTelephone(details.getTelephone());
+		this.owners.save(owner);
+		return true;
+	}
+
+	/**
+	 * Add a new pet to an owner, reading the owner and its pets once.
+	 * @return {@literal false} if the owner already has a pet of that name, in which case
+	 * nothing is saved
+	 */
+	@Transactional
+	public boolean addPet(int ownerId, Pet pet) {
+		Owner owner = this.owners.findWithPetsById(ownerId);
+		if (owner.getPet(pet.getName(), true) != null) {
+			return false;
+		}
+		owner.addPet(pet);
+		this.owners.save(owner);
+		return true;
+	}
+
+	/**
+	 * Copy the name, birth date and (if given) type of {@code pet} to the owner's pet
+	 * with the same id, reading the owner and its pets once. The owner's version is
+	 * incremented.
+	 * @return {@literal false} if the owner has no such pet, in which case nothing is
+	 * saved
+	 */
+	@Transactional
+	public boolean updatePet(int ownerId, Pet pet) {
+		Owner owner = this.owners.findWithPetsById(ownerId);
+		Pet existing = owner == null ? null : owner.getPet(pet.getId());
+		if (existing == null) {
+			return false;
+		}
+		existing.setName(pet.getName());
+		existing.setBirthDate(pet.getBirthDate());
+		if (pet.getType() != null) {
+			existing.setType(pet.getType());
+		}
+		this.owners.save(owner);
+		this.owners.incrementVersion(ownerId);
+		return true;
+	}
+
+	/**
+	 * Add a visit to a pet of an owner, see {@link VisitRepository#addVisit}, and
+	 * increment the owner's version.
+	 * @return {@literal false} if the owner has no such pet, in which case nothing is
+	 * saved
+	 */
+	@Transactional
+	public boolean addVisit(int ownerId, int petId, Visit visit) {
+		if (!this.visits.addVisit(ownerId, petId, visit)) {
+			return false;
+		}
+		this.owners.incrementVersion(ownerId);
+		this.events.publishEvent(new OwnerChangedEvent(ownerId));
+		return true;
+	}
+
+	/**
+	 * Fill in the pet names of a page of owners with a single query instead of loading
+	 * every owner's pets (and their visits) one by one.
+	 */
+	private void addPetNames(List<OwnerSummary> summaries) {
+		Map<Integer, OwnerSummary> summariesById = new HashMap<>();
+		for (OwnerSummary summary : summaries) {
+			summariesById.put(summary.getId(), summary);
+		}
+		for (OwnerRepository.PetName petName : this.owners.findPetNamesByOwnerIds(summariesById.keySet())) {
+			summariesById.get(petName.getOwnerId()).addPetName(petName.getName());
+		}
+	}
+
+}
@@ -17,9 +17,9 @@ package org.springframework.samples.petclinic.owner;
 
 import java.util.Collection;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
-import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
 
@@ -42,9 +43,9 @@ class PetController {
 
 	private static final String VIEWS_PETS_CREATE_OR_UPDATE_FORM = "pets/createOrUpdatePetForm";
 
-	private final OwnerRepository owners;
+	private final OwnerService owners;
 
-	public PetController(OwnerRepository owners) {
+	public PetController(OwnerService owners) {
 		this.owners = owners;
 	}
 
@@ -53,68 +54,61 @@ class PetController {
 		return this.owners.findPetTypes();
 	}
 
-	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
-		return this.owners.findById(ownerId);
-	}
-
-	@ModelAttribute("pet")
-	public Pet findPet(@PathVariable("ownerId") int ownerId,
-			@PathVariable(name = "petId", required = false) Integer petId) {
-		return petId == null ? new Pet() : this.owners.findById(ownerId).getPet(petId);
-	}
-
-	@InitBinder("owner")
-	public void initOwnerBinder(WebDataBinder dataBinder) {
-		dataBinder.setDisallowedFields("id");
-	}
-
 	@InitBinder("pet")
 	public void initPetBinder(WebDataBinder dataBinder) {
 		dataBinder.setValidator(new PetValidator());
 	}
 
 	@GetMapping("/pets/new")
-	public String initCreationForm(Owner owner, ModelMap model) {
-		Pet pet = new Pet();
-		owner.addPet(pet);
-		model.put("pet", pet);
-		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+	public String initCreationForm(@PathVariable("ownerId") int ownerId, ModelMap model) {
+		return showPetForm(this.owners.findOwner(ownerId), new Pet(), model);
 	}
 
+	/**
+	 * Checks the name and adds the pet in one transaction; the owner is only read again
+	 * when the form has to be shown again.
+	 */
 	@PostMapping("/pets/new")
-	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model) {
-		if (StringUtils.hasLength(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null) {
+	public String processCreationForm(@PathVariable("ownerId") int ownerId, @Valid Pet pet, BindingResult result,
+			ModelMap model) {
+		if (!result.hasErrors()) {
+			if (this.owners.addPet(ownerId, pet)) {
+				return "redirect:/owners/{ownerId}";
+			}
 			result.rejectValue("name", "duplicate", "already exists");
 		}
-
-		owner.addPet(pet);
-		if (result.hasErrors()) {
-			model.put("pet", pet);
-			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
-		}
-
-		this.owners.save(owner);
-		return "redirect:/owners/{ownerId}";
+		return showPetForm(this.owners.findOwner(ownerId), pet, model);
 	}
 
 	@GetMapping("/pets/{petId}/edit")
-	public String initUpdateForm(Owner owner, @PathVariable("petId") int petId, ModelMap model) {
-		Pet pet = owner.getPet(petId);
-		model.put("pet", pet);
-		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+	public String initUpdateForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			ModelMap model) {
+		Owner owner = this.owners.findOwnerWithPets(ownerId);
+		Pet pet = owner == null ? null : owner.getPet(petId);
+		if (pet == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Owner " + ownerId + " has no pet " + petId);
+		}
+		return showPetForm(owner, pet, model);
 	}
 
 	@PostMapping("/pets/{petId}/edit")
-	public String processUpdateForm(@Valid Pet pet, BindingResult result, Owner owner, ModelMap model) {
+	public String processUpdateForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@Valid Pet pet, BindingResult result, ModelMap model) {
+		pet.setId(petId);
 		if (result.hasErrors()) {
-			model.put("pet", pet);
-			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+			return showPetForm(this.owners.findOwner(ownerId), pet, model);
 		}
 
-		owner.addPet(pet);
-		this.owners.save(owner);
+		if (!this.owners.updatePet(ownerId, pet)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Owner " + ownerId + " has no pet " + petId);
+		}
 		return "redirect:/owners/{ownerId}";
 	}
 
+	private String showPetForm(Owner owner, Pet pet, ModelMap model) {
+		model.put("owner", owner);
+		model.put("pet", pet);
+		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+	}
+
 }
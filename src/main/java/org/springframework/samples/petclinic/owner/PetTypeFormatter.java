@@ -16,18 +16,26 @@
 package org.springframework.samples.petclinic.owner;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.format.Formatter;
 import org.springframework.stereotype.Component;
 
 import java.text.ParseException;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Instructs Spring MVC on how to parse and print elements of type 'PetType'. Starting
  * from Spring 3.0, Formatters have come as an improvement in comparison to legacy
  * PropertyEditors. See the following links for more details: - The Spring ref doc:
  * https://docs.spring.io/spring-framework/docs/current/spring-framework-reference/core.html#format
+ * <p>
+ * Names are resolved through an immutable index built from the cached result of
+ * {@link OwnerRepository#findPetTypes()}. The index is rebuilt whenever that cache hands
+ * out a new list, i.e. after it expired or was cleared.
  *
  * @author Mark Fisher
  * @author Juergen Hoeller
@@ -38,11 +46,22 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	private final OwnerRepository owners;
 
+	private volatile PetTypeIndex index = new PetTypeIndex(List.of(), Map.of());
+
 	@Autowired
 	public PetTypeFormatter(OwnerRepository owners) {
 		this.owners = owners;
 	}
 
+	/**
+	 * Load the pet types once the application is up, so that the first pet form does not
+	 * pay for it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadPetTypes() {
+		currentIndex();
+	}
+
 	@Override
 	public String print(PetType petType, Locale locale) {
 		return petType.getName();
@@ -50,13 +69,28 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	@Override
 	public PetType parse(String text, Locale locale) throws ParseException {
-		Collection<PetType> findPetTypes = this.owners.findPetTypes();
-		for (PetType type : findPetTypes) {
-			if (type.getName().equals(text)) {
-				return type;
+		PetType type = currentIndex().byName().get(text);
+		if (type == null) {
+			throw new ParseException("type not found: " + text, 0);
+		}
+		return type;
+	}
+
+	private PetTypeIndex currentIndex() {
+		List<PetType> petTypes = this.owners.findPetTypes();
+		PetTypeIndex current = this.index;
+		if (current.source() != petTypes) {
+			Map<String, PetType> byName = new HashMap<>();
+			for (PetType type : petTypes) {
+				byName.put(type.getName(), type);
 			}
+			current = new PetTypeIndex(petTypes, Map.copyOf(byName));
+			this.index = current;
 		}
-		throw new ParseException("type not found: " + text, 0);
+		return current;
+	}
+
+	private record PetTypeIndex(List<PetType> source, Map<String, PetType> byName) {
 	}
 
 }
@@ -17,14 +17,15 @@ package org.springframework.samples.petclinic.owner;
 
 import java.util.Map;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
 
@@ -38,9 +39,11 @@ import jakarta.validation.Valid;
 @Controller
 class VisitController {
 
-	private final OwnerRepository owners;
+	private static final String VIEWS_VISIT_CREATE_FORM = "pets/createOrUpdateVisitForm";
 
-	public VisitController(OwnerRepository owners) {
+	private final OwnerService owners;
+
+	public VisitController(OwnerService owners) {
 		this.owners = owners;
 	}
 
@@ -49,46 +52,34 @@ class VisitController {
 		dataBinder.setDisallowedFields("id");
 	}
 
-	/**
-	 * Called before each and every @RequestMapping annotated method. 2 goals: - Make sure
-	 * we always have fresh data - Since we do not use the session scope, make sure that
-	 * Pet object always has an id (Even though id is not part of the form fields)
-	 * @param petId
-	 * @return Pet
-	 */
-	@ModelAttribute("visit")
-	public Visit loadPetWithVisit(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
-			Map<String, Object> model) {
-		Owner owner = this.owners.findById(ownerId);
-
-		Pet pet = owner.getPet(petId);
-		model.put("pet", pet);
-		model.put("owner", owner);
-
-		Visit visit = new Visit();
-		pet.addVisit(visit);
-		return visit;
-	}
-
-	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
-	// called
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
-		return "pets/createOrUpdateVisitForm";
+	public String initNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			Map<String, Object> model) {
+		model.put("visit", new Visit());
+		return showVisitForm(ownerId, petId, model);
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is
-	// called
+	/**
+	 * Records the visit without loading the owner or the pet's previous visits; they are
+	 * only read when the form has to be shown again.
+	 */
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result) {
+	public String processNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@Valid Visit visit, BindingResult result, Map<String, Object> model) {
 		if (result.hasErrors()) {
-			return "pets/createOrUpdateVisitForm";
+			return showVisitForm(ownerId, petId, model);
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		if (!this.owners.addVisit(ownerId, petId, visit)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Owner " + ownerId + " has no pet " + petId);
+		}
 		return "redirect:/owners/{ownerId}";
 	}
 
+	private String showVisitForm(int ownerId, int petId, Map<String, Object> model) {
+		model.put("owner", this.owners.findOwner(ownerId));
+		model.put("pet", this.owners.findPet(ownerId, petId));
+		return VIEWS_VISIT_CREATE_FORM;
+	}
+
 }
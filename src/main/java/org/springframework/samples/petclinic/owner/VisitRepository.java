@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for <code>Visit</code> domain objects. Visits are recorded on their
+ * own rather than by saving the whole {@link Owner}, so that the cost of adding one does
+ * not depend on how many pets and visits the owner already has.
+ */
+public interface VisitRepository extends Repository<Visit, Integer> {
+
+	/**
+	 * Retrieve a {@link Pet} of an {@link Owner} by their keys, without its type and
+	 * visits.
+	 * @param ownerId the id of the owner
+	 * @param petId the id of the pet
+	 * @return the {@link Pet}, or {@literal null} if the owner has no such pet
+	 */
+	@Query("SELECT pet FROM Owner owner JOIN owner.pets pet WHERE owner.id = :ownerId AND pet.id = :petId")
+	@Transactional(readOnly = true)
+	Pet findPet(@Param("ownerId") Integer ownerId, @Param("petId") Integer petId);
+
+	/**
+	 * Save a {@link Visit} to the data store.
+	 * @param visit the {@link Visit} to save
+	 */
+	void save(Visit visit);
+
+	/**
+	 * Add a {@link Visit} to a {@link Pet} of an {@link Owner}: one query checks that the
+	 * pet belongs to the owner, one insert stores the visit. Neither the owner nor the
+	 * existing visits are loaded, and the cached details of the owner are evicted.
+	 * @param ownerId the id of the owner
+	 * @param petId the id of the pet
+	 * @param visit the new {@link Visit}
+	 * @return {@literal false} if the owner has no such pet, in which case nothing is
+	 * saved
+	 */
+	@Transactional
+	@CacheEvict(cacheNames = "owners", key = "#p0")
+	default boolean addVisit(Integer ownerId, Integer petId, Visit visit) {
+		Pet pet = findPet(ownerId, petId);
+		if (pet == null) {
+			return false;
+		}
+		visit.setPet(pet);
+		save(visit);
+		return true;
+	}
+
+}
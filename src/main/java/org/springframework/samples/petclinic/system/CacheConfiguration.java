@@ -16,38 +16,106 @@
 
 package org.springframework.samples.petclinic.system;
 
+import java.net.URI;
+import java.util.OptionalLong;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
 
-import javax.cache.configuration.MutableConfiguration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * creates the used caches for the application, bounds them according to their
+ * {@link CachePolicies} and enables statistics that become accessible via JMX and the
+ * actuator metrics endpoint ({@code cache.gets}, {@code cache.puts},
+ * {@code cache.evictions}, ...). A cache can be cleared through the actuator, e.g.
+ * {@code DELETE /actuator/caches/petTypes}.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(CachePolicies.class)
 class CacheConfiguration {
 
+	/**
+	 * A cache manager of its own for this application context, closed with it. The
+	 * default one of the caching provider is shared by every application context of the
+	 * class loader (several test contexts for instance), which would then see each
+	 * other's cached owners and entities, even on different databases.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager jCacheCacheManager(ApplicationContext context,
+			ObjectProvider<JCacheManagerCustomizer> customizers) {
+		URI uri = URI.create("petclinic:" + ObjectUtils.getIdentityHexString(context));
+		CacheManager cacheManager = Caching.getCachingProvider().getCacheManager(uri, context.getClassLoader());
+		customizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+		return cacheManager;
+	}
+
+	@Bean
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(CachePolicies policies) {
+		return cm -> {
+			for (String name : new String[] { "vets", "vetPages", "petTypes", "owners", "petTypeEntities",
+					"specialtyEntities" }) {
+				cm.createCache(name, cacheConfiguration(policies.get(name)));
+			}
+		};
+	}
+
+	/**
+	 * Puts and evictions made within a transaction take effect once it commits. An owner
+	 * saved by a service method is evicted by the repository within the service's
+	 * transaction, and evicted right away it could be read back into the cache before the
+	 * change is committed.
+	 */
+	@Bean
+	public CacheManagerCustomizer<JCacheCacheManager> transactionAwareCacheManagerCustomizer() {
+		return cacheManager -> cacheManager.setTransactionAware(true);
+	}
+
+	/**
+	 * Hibernate keeps the second-level cache regions of {@code @Cache} entities in the
+	 * same {@link CacheManager}, so that they are bounded by their {@link CachePolicies}
+	 * and show up with the other caches in the actuator metrics and caches endpoints.
+	 */
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+	public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager cacheManager) {
+		return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
+	 * Create a configuration that enables statistics and applies the given policy.
 	 * <p>
 	 * Within the configuration object that is provided by the JCache API standard, there
-	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * is only a very limited set of configuration options, so the Caffeine specific one
+	 * is used to set the size limit. Entries are stored by reference: they are read far
+	 * more often than written and copying them on each read would cost more than the
+	 * query they replace.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	private CaffeineConfiguration<Object, Object> cacheConfiguration(CachePolicies.Policy policy) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setStatisticsEnabled(true);
+		configuration.setStoreByValue(false);
+		if (policy.getMaximumSize() != null) {
+			configuration.setMaximumSize(OptionalLong.of(policy.getMaximumSize()));
+		}
+		if (policy.getExpireAfterWrite() != null) {
+			configuration.setExpireAfterWrite(OptionalLong.of(policy.getExpireAfterWrite().toNanos()));
+		}
+		return configuration;
 	}
 
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Size and time bounds of the application caches, keyed by cache name, e.g.
+ * {@code petclinic.cache.vets.maximum-size=1}. A cache without a policy is unbounded.
+ */
+@ConfigurationProperties("petclinic")
+class CachePolicies {
+
+	private final Map<String, Policy> cache = new LinkedHashMap<>();
+
+	public Map<String, Policy> getCache() {
+		return this.cache;
+	}
+
+	Policy get(String cacheName) {
+		return this.cache.getOrDefault(cacheName, new Policy());
+	}
+
+	static class Policy {
+
+		/**
+		 * Maximum number of entries, least recently and frequently used ones are evicted
+		 * first.
+		 */
+		private Long maximumSize;
+
+		/**
+		 * Time after which an entry is dropped, so that the next call reads it again.
+		 */
+		private Duration expireAfterWrite;
+
+		public Long getMaximumSize() {
+			return this.maximumSize;
+		}
+
+		public void setMaximumSize(Long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		public Duration getExpireAfterWrite() {
+			return this.expireAfterWrite;
+		}
+
+		public void setExpireAfterWrite(Duration expireAfterWrite) {
+			this.expireAfterWrite = expireAfterWrite;
+		}
+
+	}
+
+}
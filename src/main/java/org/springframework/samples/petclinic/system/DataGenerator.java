@@ -0,0 +1,221 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Adds generated owners, pets, visits, vets and specialties to the database on startup
+ * when the {@code datagen} profile is active, e.g.
+ * {@code --spring.profiles.active=datagen --petclinic.datagen.owners=1000000}. The data
+ * only depends on the {@link DataGeneratorProperties#getSeed() seed} and the existing
+ * reference data, and is written with batched JDBC inserts so that millions of rows can
+ * be added in minutes rather than hours.
+ * <p>
+ * Rows get explicit ids following the current maximum, the identity columns and id
+ * sequences are moved past them afterwards. MySQL does that on its own.
+ */
+@Component
+@Profile("datagen")
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+public class DataGenerator implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(DataGenerator.class);
+
+	private static final String[] FIRST_NAMES = { "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael",
+			"Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+			"Sarah", "Charles", "Karen" };
+
+	private static final String[] LAST_NAMES = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+			"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+			"Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark",
+			"Ramirez", "Lewis", "Robinson" };
+
+	private static final String[] STREETS = { "Main St.", "Oak Ave.", "Maple St.", "Cedar Ln.", "Park Blvd.",
+			"Lake St.", "Hill Rd.", "Elm St." };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee",
+			"Middleton", "Verona" };
+
+	private static final String[] PET_NAMES = { "Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max",
+			"Lucky", "Mulligan", "Freddy", "Sly", "Bella", "Luna", "Charlie", "Daisy" };
+
+	private static final String[] VISIT_DESCRIPTIONS = { "rabies shot", "neutered", "spayed", "check-up", "vaccination",
+			"dental cleaning", "allergy treatment", "x-ray" };
+
+	/**
+	 * Allocation size of the id sequences, see
+	 * {@link org.springframework.samples.petclinic.model.BaseEntity}.
+	 */
+	private static final int ID_ALLOCATION_SIZE = 50;
+
+	private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(2005, 1, 1);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final DataGeneratorProperties properties;
+
+	private final String database;
+
+	public DataGenerator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			DataGeneratorProperties properties, @Value("${database}") String database) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.properties = properties;
+		this.database = database;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		generate();
+	}
+
+	public void generate() {
+		long start = System.currentTimeMillis();
+		Random random = new Random(this.properties.getSeed());
+		generateVets(random);
+		generateOwners(random);
+		logger.info("Generated " + this.properties.getOwners() + " owners and " + this.properties.getVets()
+				+ " vets in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	private void generateVets(Random random) {
+		int firstSpecialtyId = nextId("specialties");
+		List<Integer> specialtyIds = ids("specialties");
+		List<Object[]> specialties = new ArrayList<>();
+		for (int i = 0; i < this.properties.getSpecialties(); i++) {
+			specialties.add(new Object[] { firstSpecialtyId + i, "specialty " + (firstSpecialtyId + i) });
+			specialtyIds.add(firstSpecialtyId + i);
+		}
+		int specialtyCount = specialtyIds.size();
+
+		int firstVetId = nextId("vets");
+		List<Object[]> vets = new ArrayList<>();
+		List<Object[]> vetSpecialties = new ArrayList<>();
+		for (int vetId = firstVetId; vetId < firstVetId + this.properties.getVets(); vetId++) {
+			vets.add(new Object[] { vetId, pick(random, FIRST_NAMES), pick(random, LAST_NAMES) });
+			if (specialtyCount > 0) {
+				int specialty = random.nextInt(specialtyCount);
+				int count = Math.min(random.nextInt(3), specialtyCount);
+				for (int i = 0; i < count; i++) {
+					vetSpecialties.add(new Object[] { vetId, specialtyIds.get((specialty + i) % specialtyCount) });
+				}
+			}
+		}
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.jdbcTemplate.batchUpdate("INSERT INTO specialties (id, name) VALUES (?, ?)", specialties);
+			this.jdbcTemplate.batchUpdate("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)", vets);
+			this.jdbcTemplate.batchUpdate("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)",
+					vetSpecialties);
+		});
+		restartIdentity("specialties", firstSpecialtyId + specialties.size());
+		restartIdentity("vets", firstVetId + vets.size());
+	}
+
+	private void generateOwners(Random random) {
+		List<Integer> typeIds = ids("types");
+		int firstOwnerId = nextId("owners");
+		int petId = nextId("pets");
+		int visitId = nextId("visits");
+		int batchSize = this.properties.getBatchSize();
+		List<Object[]> owners = new ArrayList<>(batchSize);
+		List<Object[]> pets = new ArrayList<>(batchSize * this.properties.getPetsPerOwner());
+		List<Object[]> visits = new ArrayList<>(
+				batchSize * this.properties.getPetsPerOwner() * this.properties.getVisitsPerPet());
+		int endOwnerId = firstOwnerId + this.properties.getOwners();
+		for (int ownerId = firstOwnerId; ownerId < endOwnerId; ownerId++) {
+			owners.add(new Object[] { ownerId, pick(random, FIRST_NAMES), pick(random, LAST_NAMES),
+					(1 + random.nextInt(9999)) + " " + pick(random, STREETS), pick(random, CITIES),
+					String.format("608%07d", random.nextInt(10_000_000)) });
+			for (int i = 0; i < this.properties.getPetsPerOwner(); i++, petId++) {
+				LocalDate birthDate = FIRST_BIRTH_DATE.plusDays(random.nextInt(6000));
+				pets.add(new Object[] { petId, pick(random, PET_NAMES), Date.valueOf(birthDate),
+						typeIds.get(random.nextInt(typeIds.size())), ownerId });
+				for (int j = 0; j < this.properties.getVisitsPerPet(); j++, visitId++) {
+					visits.add(new Object[] { visitId, petId, Date.valueOf(birthDate.plusDays(random.nextInt(3000))),
+							pick(random, VISIT_DESCRIPTIONS) });
+				}
+			}
+			if (owners.size() == batchSize) {
+				insertOwners(owners, pets, visits);
+			}
+		}
+		insertOwners(owners, pets, visits);
+		restartIdentity("owners", endOwnerId);
+		restartIdentity("pets", petId);
+		restartIdentity("visits", visitId);
+	}
+
+	private void insertOwners(List<Object[]> owners, List<Object[]> pets, List<Object[]> visits) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.jdbcTemplate.batchUpdate("INSERT INTO owners (id, first_name, last_name, address, city, telephone) "
+					+ "VALUES (?, ?, ?, ?, ?, ?)", owners);
+			this.jdbcTemplate.batchUpdate(
+					"INSERT INTO pets (id, name, birth_date, type_id, owner_id) " + "VALUES (?, ?, ?, ?, ?)", pets);
+			this.jdbcTemplate.batchUpdate(
+					"INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", visits);
+		});
+		owners.clear();
+		pets.clear();
+		visits.clear();
+	}
+
+	private int nextId(String table) {
+		Integer max = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+		return max == null ? 1 : max + 1;
+	}
+
+	/**
+	 * The ids of the rows of the given table, which need not be numbered from 1 without
+	 * gaps.
+	 */
+	private List<Integer> ids(String table) {
+		return new ArrayList<>(
+				this.jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Integer.class));
+	}
+
+	private void restartIdentity(String table, int nextId) {
+		if (!"mysql".equals(this.database)) {
+			this.jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + nextId);
+			// Hibernate's pooled optimizer uses the ids up to and including the value
+			// read
+			this.jdbcTemplate
+					.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + (nextId + ID_ALLOCATION_SIZE - 1));
+		}
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Scale of the data added by the {@link DataGenerator}.
+ */
+@ConfigurationProperties("petclinic.datagen")
+public class DataGeneratorProperties {
+
+	/**
+	 * Number of owners to add.
+	 */
+	private int owners = 100_000;
+
+	/**
+	 * Number of pets of each owner.
+	 */
+	private int petsPerOwner = 2;
+
+	/**
+	 * Number of visits of each pet.
+	 */
+	private int visitsPerPet = 5;
+
+	/**
+	 * Number of vets to add.
+	 */
+	private int vets = 100;
+
+	/**
+	 * Number of specialties to add, each vet gets up to two of the existing ones.
+	 */
+	private int specialties = 10;
+
+	/**
+	 * Seed of the random values, the same seed always generates the same data.
+	 */
+	private long seed = 42;
+
+	/**
+	 * Number of owners, with their pets and visits, written per JDBC batch and
+	 * transaction.
+	 */
+	private int batchSize = 1000;
+
+	public int getOwners() {
+		return this.owners;
+	}
+
+	public void setOwners(int owners) {
+		this.owners = owners;
+	}
+
+	public int getPetsPerOwner() {
+		return this.petsPerOwner;
+	}
+
+	public void setPetsPerOwner(int petsPerOwner) {
+		this.petsPerOwner = petsPerOwner;
+	}
+
+	public int getVisitsPerPet() {
+		return this.visitsPerPet;
+	}
+
+	public void setVisitsPerPet(int visitsPerPet) {
+		this.visitsPerPet = visitsPerPet;
+	}
+
+	public int getVets() {
+		return this.vets;
+	}
+
+	public void setVets(int vets) {
+		this.vets = vets;
+	}
+
+	public int getSpecialties() {
+		return this.specialties;
+	}
+
+	public void setSpecialties(int specialties) {
+		this.specialties = specialties;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read replicas of the database, e.g.
+ * {@code petclinic.datasource.replicas[0].url=jdbc:postgresql://replica/petclinic}.
+ * Without any, all transactions use {@code spring.datasource}.
+ */
+@ConfigurationProperties("petclinic.datasource")
+class ReplicaProperties {
+
+	private final List<Replica> replicas = new ArrayList<>();
+
+	/**
+	 * Time to wait for a connection from a replica before trying the next one.
+	 */
+	private Duration connectionTimeout = Duration.ofSeconds(2);
+
+	/**
+	 * Time during which a replica that failed to hand out a connection is skipped.
+	 */
+	private Duration retryInterval = Duration.ofSeconds(30);
+
+	public List<Replica> getReplicas() {
+		return this.replicas;
+	}
+
+	public Duration getConnectionTimeout() {
+		return this.connectionTimeout;
+	}
+
+	public void setConnectionTimeout(Duration connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	public Duration getRetryInterval() {
+		return this.retryInterval;
+	}
+
+	public void setRetryInterval(Duration retryInterval) {
+		this.retryInterval = retryInterval;
+	}
+
+	static class Replica {
+
+		/**
+		 * JDBC URL of the replica.
+		 */
+		private String url;
+
+		/**
+		 * Login user of the replica, defaults to that of the primary.
+		 */
+		private String username;
+
+		/**
+		 * Login password of the replica, defaults to that of the primary.
+		 */
+		private String password;
+
+		public String getUrl() {
+			return this.url;
+		}
+
+		public void setUrl(String url) {
+			this.url = url;
+		}
+
+		public String getUsername() {
+			return this.username;
+		}
+
+		public void setUsername(String username) {
+			this.username = username;
+		}
+
+		public String getPassword() {
+			return this.password;
+		}
+
+		public void setPassword(String password) {
+			this.password = password;
+		}
+
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends read-only transactions to the read replicas listed in {@link ReplicaProperties},
+ * and everything else to the primary configured by {@code spring.datasource}. Each
+ * database gets its own Hikari pool, configured by {@code spring.datasource.hikari}.
+ * <p>
+ * Replicas lag behind the primary, so a read right after a write, e.g. the page shown
+ * after saving a form, may not see that write yet. Reads whose result is kept, like the
+ * cached owner details and the search index, are marked {@link ReadFromPrimary}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("petclinic.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+class ReplicaRoutingConfiguration {
+
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties primary, ReplicaProperties properties,
+			Environment environment) {
+		HikariDataSource primaryPool = pool(primary.initializeDataSourceBuilder(), environment);
+		List<DataSource> replicas = new ArrayList<>();
+		for (ReplicaProperties.Replica replica : properties.getReplicas()) {
+			HikariDataSource replicaPool = pool(DataSourceBuilder.create().url(replica.getUrl())
+					.username(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername())
+					.password(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword()),
+					environment);
+			replicaPool.setPoolName("replica-" + replicas.size());
+			replicaPool.setReadOnly(true);
+			replicaPool.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+			// start even if a replica is down, it is skipped until it is back
+			replicaPool.setInitializationFailTimeout(-1);
+			replicas.add(replicaPool);
+		}
+		return new ReplicaRoutingDataSource(primaryPool, replicas, properties.getRetryInterval());
+	}
+
+	@Bean
+	@Primary
+	public LazyConnectionDataSourceProxy dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+	/**
+	 * Applies {@link ReadFromPrimary}. An infrastructure bean, like the advisor of
+	 * {@code @Transactional}, so that it applies without AspectJ.
+	 */
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static Advisor readFromPrimaryAdvisor() {
+		MethodInterceptor interceptor = invocation -> {
+			if (ReplicaRoutingDataSource.requirePrimary()) {
+				return invocation.proceed();
+			}
+			try {
+				return invocation.proceed();
+			}
+			finally {
+				ReplicaRoutingDataSource.resetPrimaryRequired();
+			}
+		};
+		return new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(ReadFromPrimary.class),
+				interceptor);
+	}
+
+	private static HikariDataSource pool(DataSourceBuilder<?> builder, Environment environment) {
+		HikariDataSource pool = builder.type(HikariDataSource.class).build();
+		return Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool)).orElse(pool);
+	}
+
+}
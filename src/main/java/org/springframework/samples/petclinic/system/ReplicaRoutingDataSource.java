@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out connections to the primary database, except in read-only transactions, which
+ * take turns on the replicas unless they run within a {@link ReadFromPrimary} method. A
+ * replica that fails to hand out a connection is skipped for the retry interval, and
+ * reads fall back to the primary while no replica is available.
+ * <p>
+ * Transactions are marked read-only after their connection is obtained, so this data
+ * source has to be used through a {@link LazyConnectionDataSourceProxy}, which only
+ * obtains the connection for the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(ReplicaRoutingDataSource.class);
+
+	private static final ThreadLocal<Boolean> primaryRequired = new NamedThreadLocal<>("Read from primary");
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas;
+
+	private final Duration retryInterval;
+
+	private final Clock clock;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryInterval) {
+		this(primary, replicas, retryInterval, Clock.systemUTC());
+	}
+
+	ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryInterval, Clock clock) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+		this.retryInterval = retryInterval;
+		this.clock = clock;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return getConnection(DataSource::getConnection);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getConnection(dataSource -> dataSource.getConnection(username, password));
+	}
+
+	private Connection getConnection(ConnectionFactory factory) throws SQLException {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || primaryRequired.get() != null
+				|| this.replicas.isEmpty()) {
+			return factory.getConnection(this.primary);
+		}
+		int first = this.next.getAndIncrement();
+		for (int i = 0; i < this.replicas.size(); i++) {
+			Replica replica = this.replicas.get(Math.floorMod(first + i, this.replicas.size()));
+			Instant now = this.clock.instant();
+			if (replica.isAvailable(now)) {
+				try {
+					return factory.getConnection(replica.dataSource);
+				}
+				catch (SQLException ex) {
+					replica.skipUntil(now.plus(this.retryInterval));
+					logger.warn("Skipping replica for " + this.retryInterval + ": " + ex.getMessage());
+				}
+			}
+		}
+		return factory.getConnection(this.primary);
+	}
+
+	/**
+	 * Send the connections obtained by the current thread to the primary until
+	 * {@link #resetPrimaryRequired()}.
+	 * @return whether they already were, in which case they still should be afterwards
+	 */
+	static boolean requirePrimary() {
+		boolean required = primaryRequired.get() != null;
+		primaryRequired.set(Boolean.TRUE);
+		return required;
+	}
+
+	static void resetPrimaryRequired() {
+		primaryRequired.remove();
+	}
+
+	/**
+	 * Unwraps to the primary data source as well, e.g. for its pool metrics.
+	 */
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return iface.isInstance(this) ? iface.cast(this) : this.primary.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || this.primary.isWrapperFor(iface);
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Replica replica : this.replicas) {
+			close(replica.dataSource);
+		}
+		close(this.primary);
+	}
+
+	private static void close(DataSource dataSource) throws IOException {
+		if (dataSource instanceof Closeable closeable) {
+			closeable.close();
+		}
+	}
+
+	@FunctionalInterface
+	private interface ConnectionFactory {
+
+		Connection getConnection(DataSource dataSource) throws SQLException;
+
+	}
+
+	private static class Replica {
+
+		private final DataSource dataSource;
+
+		private volatile Instant skippedUntil = Instant.MIN;
+
+		Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		boolean isAvailable(Instant now) {
+			return !now.isBefore(this.skippedUntil);
+		}
+
+		void skipUntil(Instant instant) {
+			this.skippedUntil = instant;
+		}
+
+	}
+
+}
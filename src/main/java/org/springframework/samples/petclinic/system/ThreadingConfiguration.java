@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.aop.interceptor.AsyncExecutionAspectSupport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Thread configuration of the application. {@code @Async} methods run on the
+ * {@code applicationTaskExecutor}, a thread pool by default.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} Tomcat request processing and
+ * {@code @Async} methods run on virtual threads instead, one per task: a request that
+ * blocks on JDBC no longer holds one of the {@code server.tomcat.threads.max} platform
+ * threads, so the number of requests in flight is only bounded by the connection pool.
+ * This needs Java 21 or later at runtime, while the code still compiles for Java 17. The
+ * property name is the one Spring Boot 3.2 uses for the same purpose.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableAsync
+class ThreadingConfiguration {
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+	static class VirtualThreadsConfiguration {
+
+		@Bean
+		public ExecutorService virtualThreadExecutor() {
+			return newVirtualThreadPerTaskExecutor();
+		}
+
+		@Bean
+		public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+				ExecutorService virtualThreadExecutor) {
+			return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+		}
+
+		/**
+		 * Replaces the thread pool that Spring Boot would otherwise create for
+		 * {@code @Async} methods and asynchronous Spring MVC requests.
+		 */
+		@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+				AsyncExecutionAspectSupport.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+		public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+			return new TaskExecutorAdapter(virtualThreadExecutor);
+		}
+
+		/**
+		 * {@code Executors.newVirtualThreadPerTaskExecutor()} is looked up reflectively
+		 * as it does not exist in the Java 17 API the application is compiled against.
+		 */
+		static ExecutorService newVirtualThreadPerTaskExecutor() {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			}
+			catch (NoSuchMethodException ex) {
+				throw new IllegalStateException(
+						"Virtual threads require Java 21 or later, running on Java " + Runtime.version().feature(), ex);
+			}
+			catch (ReflectiveOperationException ex) {
+				throw new IllegalStateException("Could not create a virtual thread executor", ex);
+			}
+		}
+
+	}
+
+}
@@ -15,14 +15,11 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.samples.petclinic.model.Person;
 
 import jakarta.persistence.Entity;
@@ -30,6 +27,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import jakarta.xml.bind.annotation.XmlElement;
 
@@ -45,31 +43,57 @@ import jakarta.xml.bind.annotation.XmlElement;
 @Table(name = "vets")
 public class Vet extends Person {
 
+	private static final Comparator<Specialty> BY_NAME = Comparator.comparing(Specialty::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
 	@ManyToMany(fetch = FetchType.EAGER)
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
+	@OrderBy("name")
 	private Set<Specialty> specialties;
 
+	/**
+	 * Read-only view of the specialties sorted by name, built on first access after a
+	 * change: templates and serializers call {@link #getSpecialties()} for every vet on
+	 * every render of the (cached) vet list.
+	 */
+	private transient List<Specialty> sortedSpecialties;
+
+	/**
+	 * The specialties themselves, which the caller may change: the sorted view is built
+	 * again on the next call to {@link #getSpecialties()}.
+	 */
 	protected Set<Specialty> getSpecialtiesInternal() {
+		this.sortedSpecialties = null;
+		return specialties();
+	}
+
+	private Set<Specialty> specialties() {
 		if (this.specialties == null) {
-			this.specialties = new HashSet<>();
+			this.specialties = new LinkedHashSet<>();
 		}
 		return this.specialties;
 	}
 
 	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
 		this.specialties = specialties;
+		this.sortedSpecialties = null;
 	}
 
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedSpecs);
+		List<Specialty> sorted = this.sortedSpecialties;
+		if (sorted == null) {
+			// sorted here rather than relying on the database order, which neither covers
+			// specialties added since nor ignores case
+			sorted = specialties().stream().sorted(BY_NAME).toList();
+			this.sortedSpecialties = sorted;
+		}
+		return sorted;
 	}
 
 	public int getNrOfSpecialties() {
-		return getSpecialtiesInternal().size();
+		return specialties().size();
 	}
 
 	public void addSpecialty(Specialty specialty) {
@@ -16,15 +16,25 @@
 package org.springframework.samples.petclinic.vet;
 
 import java.util.List;
+import java.util.Locale;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * @author Juergen Hoeller
@@ -35,19 +45,39 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 class VetController {
 
-	private final VetRepository vetRepository;
+	private static final int PAGE_SIZE = 5;
+
+	private final VetService vetService;
+
+	private final VetStreamWriter vetStreamWriter;
 
-	public VetController(VetRepository clinicService) {
-		this.vetRepository = clinicService;
+	public VetController(VetService vetService, VetStreamWriter vetStreamWriter) {
+		this.vetService = vetService;
+		this.vetStreamWriter = vetStreamWriter;
 	}
 
+	/**
+	 * Show a page of vets, tagged with the {@link VetService#version(Iterable) version}
+	 * of the vets on it and the locale it is rendered in, so that a request revalidating
+	 * it gets a 304 response without the page being rendered. The first pages come from a
+	 * cache, so revalidating them does not read the database either.
+	 */
 	@GetMapping("/vets.html")
-	public String showVetList(@RequestParam(defaultValue = "1") int page, Model model) {
-		// Here we are returning an object of type 'Vets' rather than a collection of Vet
-		// objects so it is simpler for Object-Xml mapping
-		Vets vets = new Vets();
+	public String showVetList(@RequestParam(defaultValue = "1") int page,
+			@RequestParam(required = false) String afterLastName, @RequestParam(required = false) Integer afterId,
+			Model model, WebRequest request, Locale locale, HttpServletResponse response) {
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+		if (afterLastName != null && afterId != null) {
+			Slice<Vet> vets = vetService.findVetsAfter(afterLastName, afterId, PageRequest.ofSize(PAGE_SIZE));
+			if (request.checkNotModified(pageEtag(vets, locale))) {
+				return null;
+			}
+			return addKeysetModel(page, vets, model);
+		}
 		Page<Vet> paginated = findPaginated(page);
-		vets.getVetList().addAll(paginated.toList());
+		if (request.checkNotModified(pageEtag(paginated, locale))) {
+			return null;
+		}
 		return addPaginationModel(page, paginated, model);
 
 	}
@@ -58,22 +88,73 @@ class VetController {
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
 		model.addAttribute("listVets", listVets);
+		addNextCursor(paginated, model);
 		return "vets/vetList";
 	}
 
+	private String addKeysetModel(int page, Slice<Vet> slice, Model model) {
+		model.addAttribute("keyset", true);
+		model.addAttribute("currentPage", page);
+		model.addAttribute("listVets", slice.getContent());
+		addNextCursor(slice, model);
+		return "vets/vetList";
+	}
+
+	private void addNextCursor(Slice<Vet> slice, Model model) {
+		if (slice.hasNext()) {
+			Vet last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			model.addAttribute("nextAfterLastName", last.getLastName());
+			model.addAttribute("nextAfterId", last.getId());
+		}
+	}
+
 	private Page<Vet> findPaginated(int page) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return vetRepository.findAll(pageable);
+		// sorted like the keyset query so that "next" links continue where the page ends
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE, Sort.by("lastName", "id"));
+		return vetService.findVets(pageable);
 	}
 
+	/**
+	 * All vets as JSON or XML, tagged with the {@link VetService#findVetsVersion()
+	 * version} of the vets they are read from. The tag is the same for both, so the
+	 * response varies by {@code Accept}.
+	 */
 	@GetMapping({ "/vets" })
-	public @ResponseBody Vets showResourcesVetList() {
+	public ResponseEntity<Vets> showResourcesVetList(WebRequest request) {
+		if (request.checkNotModified(vetsEtag())) {
+			return null;
+		}
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for JSon/Object mapping
 		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vetRepository.findAll());
-		return vets;
+		vets.getVetList().addAll(this.vetService.findAllVets());
+		return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(vets);
+	}
+
+	/**
+	 * Weak, as the pages are the same whether or not they are compressed.
+	 */
+	private String vetsEtag() {
+		return "W/\"" + this.vetService.findVetsVersion() + "\"";
+	}
+
+	private static String pageEtag(Slice<Vet> vets, Locale locale) {
+		return "W/\"" + VetService.version(vets) + "-" + locale.toLanguageTag() + "\"";
+	}
+
+	/**
+	 * Same content as {@link #showResourcesVetList(WebRequest)}, written while the vets
+	 * are read from the database instead of after loading them all. The response is
+	 * written by an MVC async thread.
+	 */
+	@GetMapping(value = "/vets/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamResourcesVetListJson() {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(this.vetStreamWriter::writeJson);
+	}
+
+	@GetMapping(value = "/vets/stream", produces = MediaType.APPLICATION_XML_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamResourcesVetListXml() {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body(this.vetStreamWriter::writeXml);
 	}
 
 }
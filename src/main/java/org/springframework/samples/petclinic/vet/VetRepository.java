@@ -19,10 +19,23 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository class for <code>Vet</code> domain objects All method names are compliant
@@ -41,18 +54,82 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 * Retrieve all <code>Vet</code>s from the data store.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
+	@Query("SELECT vet FROM Vet vet LEFT JOIN FETCH vet.specialties ORDER BY vet.id")
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
 	/**
-	 * Retrieve all <code>Vet</code>s from data store in Pages
+	 * Retrieve all <code>Vet</code>s from data store in Pages. The ids of the page are
+	 * selected first and the vets then read with their specialties, so that the page is
+	 * limited by the database rather than in memory, and specialties are not read with
+	 * one query per vet.
 	 * @param pageable
 	 * @return
 	 * @throws DataAccessException
 	 */
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
-	Page<Vet> findAll(Pageable pageable) throws DataAccessException;
+	@Cacheable("vetPages")
+	default Page<Vet> findAll(Pageable pageable) throws DataAccessException {
+		Page<Integer> ids = findIdsInternal(pageable);
+		return ids.map(withSpecialties(ids.getContent()));
+	}
+
+	/**
+	 * Retrieve the <code>Vet</code>s that sort after the given one by last name and id,
+	 * without counting the total number of vets.
+	 * @param afterLastName the last name of the last vet of the previous page
+	 * @param afterId the id of the last vet of the previous page
+	 * @param pageable the number of results to return, always for the first page
+	 * @return a <code>Slice</code> of <code>Vet</code>s
+	 */
+	@Transactional(readOnly = true)
+	default Slice<Vet> findAllAfter(String afterLastName, Integer afterId, Pageable pageable)
+			throws DataAccessException {
+		Slice<Integer> ids = findIdsAfterInternal(afterLastName, afterId, pageable);
+		return ids.map(withSpecialties(ids.getContent()));
+	}
+
+	/**
+	 * Retrieve a page of <code>Vet</code> ids. Only the first step of
+	 * {@link #findAll(Pageable)}, call that instead: it is cached and reads the vets.
+	 */
+	@Query(value = "SELECT vet.id FROM Vet vet", countQuery = "SELECT count(vet) FROM Vet vet")
+	Page<Integer> findIdsInternal(Pageable pageable) throws DataAccessException;
+
+	/**
+	 * Retrieve the ids of the <code>Vet</code>s that sort after the given one. Only the
+	 * first step of {@link #findAllAfter(String, Integer, Pageable)}, call that instead.
+	 */
+	@Query("SELECT vet.id FROM Vet vet WHERE vet.lastName > :afterLastName "
+			+ "OR (vet.lastName = :afterLastName AND vet.id > :afterId) ORDER BY vet.lastName, vet.id")
+	Slice<Integer> findIdsAfterInternal(@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId,
+			Pageable pageable) throws DataAccessException;
+
+	/**
+	 * Retrieve the <code>Vet</code>s with the given ids and their specialties, in no
+	 * particular order. Only the second step of {@link #findAll(Pageable)} and
+	 * {@link #findAllAfter(String, Integer, Pageable)}, which put the vets in the order
+	 * of their ids.
+	 */
+	@Query("SELECT vet FROM Vet vet LEFT JOIN FETCH vet.specialties WHERE vet.id IN :ids")
+	List<Vet> findAllByIdInternal(@Param("ids") Collection<Integer> ids) throws DataAccessException;
+
+	private Function<Integer, Vet> withSpecialties(List<Integer> ids) {
+		Map<Integer, Vet> vets = ids.isEmpty() ? Map.of()
+				: findAllByIdInternal(ids).stream().collect(Collectors.toMap(Vet::getId, Function.identity()));
+		return vets::get;
+	}
+
+	/**
+	 * Read all <code>Vet</code>s with their specialties, in id order, as a
+	 * <code>Stream</code> that fetches rows from the database as it is consumed. Must be
+	 * called and consumed within a transaction, and closed afterwards.
+	 * @return a <code>Stream</code> of read-only <code>Vet</code>s
+	 */
+	@Query("SELECT vet FROM Vet vet LEFT JOIN FETCH vet.specialties ORDER BY vet.id")
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	Stream<Vet> streamAll() throws DataAccessException;
 
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the vets for {@link VetController}, each call in a single read-only transaction.
+ * The vets are returned with their specialties, so nothing is loaded while the view is
+ * rendered.
+ */
+@Service
+@Transactional(readOnly = true)
+public class VetService {
+
+	private final VetRepository vets;
+
+	public VetService(VetRepository vets) {
+		this.vets = vets;
+	}
+
+	public Collection<Vet> findAllVets() {
+		return this.vets.findAll();
+	}
+
+	/**
+	 * Compute a value that changes whenever the vets do, from the cached
+	 * {@link #findAllVets() list of all vets}, see {@link #version(Iterable)}. Vets are
+	 * not edited by the application, so this also covers changes made directly in the
+	 * database, once that list is read again.
+	 */
+	public String findVetsVersion() {
+		return version(findAllVets());
+	}
+
+	/**
+	 * Compute a value that changes whenever the given vets do: their ids, names and
+	 * specialties, and for a page or slice of vets whether more follow and how many vets
+	 * there are in all.
+	 */
+	public static String version(Iterable<Vet> vets) {
+		long hash = 1;
+		for (Vet vet : vets) {
+			hash = 31 * hash + Objects.hash(vet.getId(), vet.getFirstName(), vet.getLastName());
+			for (Specialty specialty : vet.getSpecialties()) {
+				hash = 31 * hash + Objects.hash(specialty.getId(), specialty.getName());
+			}
+		}
+		if (vets instanceof Slice<?>slice) {
+			hash = 31 * hash + Boolean.hashCode(slice.hasNext());
+		}
+		if (vets instanceof Page<?>page) {
+			hash = 31 * hash + Long.hashCode(page.getTotalElements());
+		}
+		return Long.toHexString(hash);
+	}
+
+	/**
+	 * Find a page of vets, see {@link VetRepository#findAll(Pageable)}.
+	 */
+	public Page<Vet> findVets(Pageable pageable) {
+		return this.vets.findAll(pageable);
+	}
+
+	/**
+	 * Find the vets after the given one, see {@link VetRepository#findAllAfter}.
+	 */
+	public Slice<Vet> findVetsAfter(String afterLastName, Integer afterId, Pageable pageable) {
+		return this.vets.findAllAfter(afterLastName, afterId, pageable);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.function.ThrowingConsumer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * Writes all vets in the JSON and XML shapes of {@link Vets} while they are read from the
+ * database. Each vet is detached once written, so memory use does not depend on the
+ * number of vets: the persistence context holds at most one vet and the output goes
+ * through the fixed-size buffers of the generator and the response.
+ */
+@Component
+class VetStreamWriter {
+
+	private static final QName VET_ELEMENT = new QName("vetList");
+
+	private final VetRepository vets;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectWriter jsonWriter;
+
+	private final JAXBContext jaxbContext;
+
+	private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
+
+	VetStreamWriter(VetRepository vets, EntityManager entityManager, PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper) throws JAXBException {
+		this.vets = vets;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		// leave flushing to the response buffer rather than flushing after every vet
+		this.jsonWriter = objectMapper.writerFor(Vet.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.jaxbContext = JAXBContext.newInstance(Vet.class);
+	}
+
+	void writeJson(OutputStream out) throws IOException {
+		JsonGenerator generator = this.jsonWriter.createGenerator(out);
+		generator.writeStartObject();
+		generator.writeArrayFieldStart("vetList");
+		forEachVet(vet -> this.jsonWriter.writeValue(generator, vet));
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.flush();
+	}
+
+	void writeXml(OutputStream out) throws IOException {
+		try {
+			XMLStreamWriter writer = this.xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+			Marshaller marshaller = this.jaxbContext.createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("vets");
+			forEachVet(vet -> marshaller.marshal(new JAXBElement<>(VET_ELEMENT, Vet.class, vet), writer));
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+		}
+		catch (XMLStreamException | JAXBException ex) {
+			throw new IOException("Could not write vets as XML", ex);
+		}
+	}
+
+	private void forEachVet(ThrowingConsumer<Vet> action) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<Vet> vets = this.vets.streamAll()) {
+				vets.forEach(vet -> {
+					action.accept(vet);
+					this.entityManager.detach(vet);
+				});
+			}
+		});
+	}
+
+}
@@ -5,6 +5,12 @@ DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP SEQUENCE IF EXISTS vets_seq;
+DROP SEQUENCE IF EXISTS specialties_seq;
+DROP SEQUENCE IF EXISTS types_seq;
+DROP SEQUENCE IF EXISTS owners_seq;
+DROP SEQUENCE IF EXISTS pets_seq;
+DROP SEQUENCE IF EXISTS visits_seq;
 
 
 CREATE TABLE vets (
@@ -12,7 +18,7 @@ CREATE TABLE vets (
   first_name VARCHAR(30),
   last_name  VARCHAR(30)
 );
-CREATE INDEX vets_last_name ON vets (last_name);
+CREATE INDEX vets_last_name ON vets (last_name, id);
 
 CREATE TABLE specialties (
   id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -36,12 +42,14 @@ CREATE INDEX types_name ON types (name);
 CREATE TABLE owners (
   id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR_IGNORECASE(30),
+  last_name  VARCHAR(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  search_last_name VARCHAR(30) GENERATED ALWAYS AS (LOWER(last_name))
 );
-CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_search_last_name ON owners (search_last_name, id);
 
 CREATE TABLE pets (
   id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -62,3 +70,12 @@ CREATE TABLE visits (
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
 CREATE INDEX visits_pet_id ON visits (pet_id);
+
+-- Hibernate draws ids from these sequences, 50 at a time, so that inserts can be
+-- batched. The identity columns stay for plain SQL inserts such as data.sql.
+CREATE SEQUENCE vets_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE specialties_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE types_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE owners_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pets_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE visits_seq START WITH 100 INCREMENT BY 50;
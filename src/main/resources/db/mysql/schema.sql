@@ -32,9 +32,36 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  version INT NOT NULL DEFAULT 0,
+  search_last_name VARCHAR(30) AS (LOWER(last_name)) STORED,
+  INDEX owners_search_last_name (search_last_name, id)
 ) engine=InnoDB;
 
+-- Databases created before owners had a search_last_name or a version get them here.
+-- MySQL has no ADD COLUMN IF NOT EXISTS, so each change is only prepared if
+-- information_schema shows it is missing.
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+  'ALTER TABLE owners ADD COLUMN search_last_name VARCHAR(30) AS (LOWER(last_name)) STORED', 'DO 0')
+  FROM information_schema.COLUMNS
+  WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'owners' AND COLUMN_NAME = 'search_last_name');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+  'CREATE INDEX owners_search_last_name ON owners (search_last_name, id)', 'DO 0')
+  FROM information_schema.STATISTICS
+  WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'owners' AND INDEX_NAME = 'owners_search_last_name');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+  'ALTER TABLE owners ADD COLUMN version INT NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.COLUMNS
+  WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'owners' AND COLUMN_NAME = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
 CREATE TABLE IF NOT EXISTS pets (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(30),
@@ -3,7 +3,7 @@ CREATE TABLE IF NOT EXISTS vets (
   first_name TEXT,
   last_name  TEXT
 );
-CREATE INDEX ON vets (last_name);
+CREATE INDEX ON vets (last_name, id);
 
 CREATE TABLE IF NOT EXISTS specialties (
   id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -31,7 +31,13 @@ CREATE TABLE IF NOT EXISTS owners (
   city       TEXT,
   telephone  TEXT
 );
-CREATE INDEX ON owners (last_name);
+-- lower-cased in the "C" collation, so that the index serves both LIKE 'prefix%' and
+-- the ORDER BY / keyset comparisons of the owner search (added to existing databases too)
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS search_last_name TEXT COLLATE "C"
+  GENERATED ALWAYS AS (lower(last_name)) STORED;
+CREATE INDEX IF NOT EXISTS owners_search_last_name ON owners (search_last_name, id);
+-- optimistic lock and ETag of the owner details page (added to existing databases too)
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
 
 CREATE TABLE IF NOT EXISTS pets (
   id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -50,3 +56,20 @@ CREATE TABLE IF NOT EXISTS visits (
   description TEXT
 );
 CREATE INDEX ON visits (pet_id);
+
+-- Hibernate draws ids from these sequences, 50 at a time, so that inserts can be
+-- batched. The identity columns stay for plain SQL inserts such as data.sql.
+CREATE SEQUENCE IF NOT EXISTS vets_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS specialties_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS types_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS owners_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS pets_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS visits_seq START WITH 100 INCREMENT BY 50;
+-- Move each sequence past the rows already in the table, e.g. those inserted through
+-- the identity column before the sequences existed, but never back.
+SELECT setval('vets_seq', GREATEST(100, (SELECT COALESCE(MAX(id), 0) + 50 FROM vets), (SELECT last_value FROM vets_seq)));
+SELECT setval('specialties_seq', GREATEST(100, (SELECT COALESCE(MAX(id), 0) + 50 FROM specialties), (SELECT last_value FROM specialties_seq)));
+SELECT setval('types_seq', GREATEST(100, (SELECT COALESCE(MAX(id), 0) + 50 FROM types), (SELECT last_value FROM types_seq)));
+SELECT setval('owners_seq', GREATEST(100, (SELECT COALESCE(MAX(id), 0) + 50 FROM owners), (SELECT last_value FROM owners_seq)));
+SELECT setval('pets_seq', GREATEST(100, (SELECT COALESCE(MAX(id), 0) + 50 FROM pets), (SELECT last_value FROM pets_seq)));
+SELECT setval('visits_seq', GREATEST(100, (SELECT COALESCE(MAX(id), 0) + 50 FROM visits), (SELECT last_value FROM visits_seq)));
@@ -18,6 +18,13 @@ package org.springframework.samples.petclinic;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Duration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -27,9 +34,20 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerService;
+import org.springframework.samples.petclinic.owner.PetType;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
 class PetClinicIntegrationTests {
 
@@ -39,15 +57,84 @@ class PetClinicIntegrationTests {
 	@Autowired
 	private VetRepository vets;
 
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private OwnerService ownerService;
+
+	@Autowired
+	private TransactionTemplate transactions;
+
 	@Autowired
 	private RestTemplateBuilder builder;
 
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Test
 	void testFindAll() throws Exception {
 		vets.findAll();
 		vets.findAll(); // served from cache
 	}
 
+	@Test
+	void testCachesAreBoundedAndMeasured() {
+		CaffeineConfiguration<?, ?> vetPages = cacheManager.getCache("vetPages")
+				.getConfiguration(CaffeineConfiguration.class);
+		assertThat(vetPages.getMaximumSize()).hasValue(100);
+		assertThat(vetPages.getExpireAfterWrite()).hasValue(Duration.ofHours(1).toNanos());
+
+		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
+		ResponseEntity<String> result = template
+				.exchange(RequestEntity.get("/actuator/metrics/cache.gets?tag=cache:vets").build(), String.class);
+		assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void testCachesBelongToTheContext() {
+		assertThat(cacheManager.getURI()).isNotEqualTo(Caching.getCachingProvider().getDefaultURI());
+		assertThat(entityManagerFactory.getProperties().get(ConfigSettings.CACHE_MANAGER)).isSameAs(cacheManager);
+	}
+
+	@Test
+	void testReferenceEntitiesAreInTheSecondLevelCache() {
+		entityManagerFactory.getCache().evict(PetType.class);
+		FunctionCounter hits = meterRegistry.get("cache.gets").tag("cache", "petTypeEntities").tag("result", "hit")
+				.functionCounter();
+		double hitsBefore = hits.count();
+
+		for (int i = 0; i < 2; i++) {
+			EntityManager entityManager = entityManagerFactory.createEntityManager();
+			assertThat(entityManager.find(PetType.class, 1).getName()).isEqualTo("cat");
+			entityManager.close();
+		}
+		assertThat(entityManagerFactory.getCache().contains(PetType.class, 1)).isTrue();
+		assertThat(hits.count()).isEqualTo(hitsBefore + 1);
+
+		CaffeineConfiguration<?, ?> specialties = cacheManager.getCache("specialtyEntities")
+				.getConfiguration(CaffeineConfiguration.class);
+		assertThat(specialties.getMaximumSize()).hasValue(1000);
+	}
+
+	@Test
+	void testOwnerIsEvictedOnceTheSaveCommits() {
+		Cache<Object, Object> cache = cacheManager.getCache("owners");
+		owners.findById(1);
+		assertThat(cache.containsKey(1)).isTrue();
+		transactions.executeWithoutResult(status -> {
+			ownerService.saveOwner(ownerService.findOwner(1));
+			assertThat(cache.containsKey(1)).isTrue();
+		});
+		assertThat(cache.containsKey(1)).isFalse();
+	}
+
 	@Test
 	void testOwnerDetails() {
 		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link OwnerApiController}
+ */
+@Import(OwnerService.class)
+@WebMvcTest(OwnerApiController.class)
+class OwnerApiControllerTests {
+
+	private static final int TEST_OWNER_ID = 1;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerRepository owners;
+
+	@MockBean
+	private VisitRepository visits;
+
+	private Owner george() {
+		Owner george = new Owner();
+		george.setId(TEST_OWNER_ID);
+		george.setFirstName("George");
+		george.setLastName("Franklin");
+		george.setAddress("110 W. Liberty St.");
+		george.setCity("Madison");
+		george.setTelephone("6085551023");
+		Pet max = new Pet();
+		PetType dog = new PetType();
+		dog.setName("dog");
+		max.setType(dog);
+		max.setName("Max");
+		max.setBirthDate(LocalDate.of(2010, 9, 7));
+		george.addPet(max);
+		max.setId(1);
+		Visit visit = new Visit();
+		visit.setDate(LocalDate.of(2013, 1, 1));
+		visit.setDescription("rabies shot");
+		max.addVisit(visit);
+		return george;
+	}
+
+	private OwnerSummary georgeSummary() {
+		return new OwnerSummary(TEST_OWNER_ID, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023");
+	}
+
+	@BeforeEach
+	void setup() {
+		given(this.owners.findSummaryById(TEST_OWNER_ID)).willReturn(george());
+		given(this.owners.findWithPetsById(TEST_OWNER_ID)).willReturn(george());
+		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george());
+		given(this.owners.findPetById(TEST_OWNER_ID, 1)).willReturn(george().getPet(1));
+	}
+
+	@Test
+	void testShowOwnerWithoutPetsOnlyReadsTheOwner() throws Exception {
+		mockMvc.perform(get("/api/v1/owners/{ownerId}", TEST_OWNER_ID).param("fields", "id,lastName"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.id").value(TEST_OWNER_ID))
+				.andExpect(jsonPath("$.lastName").value("Franklin")).andExpect(jsonPath("$.firstName").doesNotExist())
+				.andExpect(jsonPath("$.pets").doesNotExist());
+		Mockito.verify(this.owners).findSummaryById(TEST_OWNER_ID);
+		Mockito.verifyNoMoreInteractions(this.owners);
+	}
+
+	@Test
+	void testShowOwnerWithPetNamesDoesNotReadVisits() throws Exception {
+		mockMvc.perform(get("/api/v1/owners/{ownerId}", TEST_OWNER_ID).param("fields", "lastName,pets.name"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.pets[0].name").value("Max"))
+				.andExpect(jsonPath("$.pets[0].type").doesNotExist())
+				.andExpect(jsonPath("$.pets[0].visits").doesNotExist());
+		Mockito.verify(this.owners).findWithPetsById(TEST_OWNER_ID);
+		Mockito.verifyNoMoreInteractions(this.owners);
+	}
+
+	@Test
+	void testShowOwnerWithAllFields() throws Exception {
+		mockMvc.perform(get("/api/v1/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.telephone").value("6085551023"))
+				.andExpect(jsonPath("$.pets[0].birthDate").value("2010-09-07"))
+				.andExpect(jsonPath("$.pets[0].type").value("dog"))
+				.andExpect(jsonPath("$.pets[0].visits[0].description").value("rabies shot"));
+		Mockito.verify(this.owners).findById(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testShowUnknownOwner() throws Exception {
+		mockMvc.perform(get("/api/v1/owners/{ownerId}", 99)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testUnknownFieldIsRejected() throws Exception {
+		mockMvc.perform(get("/api/v1/owners/{ownerId}", TEST_OWNER_ID).param("fields", "id,pets.owner"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testListOwnersPageByPage() throws Exception {
+		given(this.owners.findSummarySliceByLastName(eq("F"), any(Pageable.class)))
+				.willReturn(new SliceImpl<>(List.of(georgeSummary()), Pageable.ofSize(1), true));
+		String next = new OwnerApiController.Cursor("Franklin", TEST_OWNER_ID).encode();
+
+		mockMvc.perform(get("/api/v1/owners").param("lastName", "F").param("size", "1").param("fields", "id"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.owners", hasSize(1)))
+				.andExpect(jsonPath("$.owners[0].id").value(TEST_OWNER_ID))
+				.andExpect(jsonPath("$.owners[0].lastName").doesNotExist()).andExpect(jsonPath("$.next").value(next));
+		Mockito.verify(this.owners, Mockito.never()).findPetNamesByOwnerIds(anyCollection());
+		Mockito.verify(this.owners, Mockito.never()).findSummariesByLastName(anyString(), any(Pageable.class));
+
+		given(this.owners.findSummariesByLastNameAfter(eq("F"), eq("Franklin"), eq(TEST_OWNER_ID), any(Pageable.class)))
+				.willReturn(new SliceImpl<>(List.of(), Pageable.ofSize(1), false));
+		mockMvc.perform(get("/api/v1/owners").param("lastName", "F").param("size", "1").param("cursor", next))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.owners", hasSize(0)))
+				.andExpect(jsonPath("$.next").doesNotExist());
+	}
+
+	@Test
+	void testListOwnersWithPetsReadsThemForTheWholePage() throws Exception {
+		given(this.owners.findSummarySliceByLastName(eq(""), any(Pageable.class)))
+				.willReturn(new SliceImpl<>(List.of(georgeSummary())));
+		given(this.owners.findAllWithPetsById(List.of(TEST_OWNER_ID))).willReturn(List.of(george()));
+
+		mockMvc.perform(get("/api/v1/owners").param("fields", "lastName,pets.name")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.owners[0].pets[0].name").value("Max"));
+		Mockito.verify(this.owners, Mockito.never()).findAllWithPetsAndVisitsById(anyCollection());
+	}
+
+	@Test
+	void testInvalidCursorIsRejected() throws Exception {
+		mockMvc.perform(get("/api/v1/owners").param("cursor", "not a cursor")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testListVisitsOfPet() throws Exception {
+		mockMvc.perform(get("/api/v1/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 1).param("fields", "date"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].date").value("2013-01-01"))
+				.andExpect(jsonPath("$[0].description").doesNotExist());
+		mockMvc.perform(get("/api/v1/owners/{ownerId}/pets/{petId}", TEST_OWNER_ID, 2))
+				.andExpect(status().isNotFound());
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
@@ -26,6 +27,8 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -42,17 +45,22 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.web.servlet.MockMvc;
 
 /**
- * Test class for {@link OwnerController}
+ * Test class for {@link OwnerController} and {@link OwnerEditController}
  *
  * @author Colin But
  */
-@WebMvcTest(OwnerController.class)
+@Import(OwnerService.class)
+@WebMvcTest({ OwnerController.class, OwnerEditController.class })
 class OwnerControllerTests {
 
 	private static final int TEST_OWNER_ID = 1;
@@ -63,6 +71,12 @@ class OwnerControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private OwnerNameIndex ownerNames;
+
 	private Owner george() {
 		Owner george = new Owner();
 		george.setId(TEST_OWNER_ID);
@@ -82,16 +96,21 @@ class OwnerControllerTests {
 		return george;
 	};
 
+	private OwnerSummary georgeSummary() {
+		return new OwnerSummary(TEST_OWNER_ID, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023");
+	}
+
 	@BeforeEach
 	void setup() {
 
 		Owner george = george();
-		given(this.owners.findByLastName(eq("Franklin"), any(Pageable.class)))
-				.willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
+		given(this.owners.findSummariesByLastName(eq("Franklin"), any(Pageable.class)))
+				.willReturn(new PageImpl<OwnerSummary>(Lists.newArrayList(georgeSummary())));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
+		given(this.owners.findSummaryById(TEST_OWNER_ID)).willReturn(george);
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
 		george.getPet("Max").getVisits().add(visit);
@@ -109,6 +128,7 @@ class OwnerControllerTests {
 		mockMvc.perform(post("/owners/new").param("firstName", "Joe").param("lastName", "Bloggs")
 				.param("address", "123 Caramel Street").param("city", "London").param("telephone", "01316761638"))
 				.andExpect(status().is3xxRedirection());
+		Mockito.verify(this.ownerNames).put(any(), eq("Bloggs"));
 	}
 
 	@Test
@@ -127,25 +147,40 @@ class OwnerControllerTests {
 				.andExpect(view().name("owners/findOwners"));
 	}
 
+	@Test
+	void testSuggestLastNames() throws Exception {
+		given(this.ownerNames.suggest("fr", 10)).willReturn(List.of("Franklin"));
+		mockMvc.perform(get("/owners/suggestions").param("lastName", "fr")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0]").value("Franklin"));
+	}
+
+	@Test
+	void testSuggestLastNamesCapsTheLimit() throws Exception {
+		mockMvc.perform(get("/owners/suggestions").param("lastName", "fr").param("limit", "1000"))
+				.andExpect(status().isOk());
+		Mockito.verify(this.ownerNames).suggest("fr", 50);
+	}
+
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george(), new Owner()));
-		Mockito.when(this.owners.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
+		OwnerSummary betty = new OwnerSummary(2, "Betty", "Davis", "638 Cardinal Ave.", "Sun Prairie", "6085551749");
+		Page<OwnerSummary> tasks = new PageImpl<OwnerSummary>(Lists.newArrayList(georgeSummary(), betty));
+		Mockito.when(this.owners.findSummariesByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george()));
-		Mockito.when(this.owners.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerSummary> tasks = new PageImpl<OwnerSummary>(Lists.newArrayList(georgeSummary()));
+		Mockito.when(this.owners.findSummariesByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
 	}
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList());
-		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerSummary> tasks = new PageImpl<OwnerSummary>(Lists.newArrayList());
+		Mockito.when(this.owners.findSummariesByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname")).andExpect(status().isOk())
 				.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
 				.andExpect(model().attributeHasFieldErrorCode("owner", "lastName", "notFound"))
@@ -153,6 +188,21 @@ class OwnerControllerTests {
 
 	}
 
+	@Test
+	void testProcessFindFormAfterKeyset() throws Exception {
+		OwnerSummary betty = new OwnerSummary(2, "Betty", "Davis", "638 Cardinal Ave.", "Sun Prairie", "6085551749");
+		Slice<OwnerSummary> tasks = new SliceImpl<OwnerSummary>(Lists.newArrayList(georgeSummary(), betty),
+				PageRequest.ofSize(2), true);
+		Mockito.when(this.owners.findSummariesByLastNameAfter(eq(""), eq("Coleman"), eq(6), any(Pageable.class)))
+				.thenReturn(tasks);
+		mockMvc.perform(get("/owners?page=2").param("afterLastName", "Coleman").param("afterId", "6"))
+				.andExpect(status().isOk()).andExpect(model().attribute("keyset", true))
+				.andExpect(model().attribute("currentPage", 2)).andExpect(model().attributeDoesNotExist("totalPages"))
+				.andExpect(model().attribute("nextAfterLastName", "Davis"))
+				.andExpect(model().attribute("nextAfterId", 2)).andExpect(view().name("owners/ownersList"));
+		Mockito.verify(this.owners, Mockito.never()).findSummariesByLastName(anyString(), any(Pageable.class));
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID)).andExpect(status().isOk())
@@ -171,6 +221,19 @@ class OwnerControllerTests {
 				.param("lastName", "Bloggs").param("address", "123 Caramel Street").param("city", "London")
 				.param("telephone", "01616291589")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/{ownerId}"));
+		Mockito.verify(this.ownerNames).put(TEST_OWNER_ID, "Bloggs");
+	}
+
+	@Test
+	void testProcessUpdateOwnerFormSavesTheOwnerReadAgain() throws Exception {
+		Owner current = george();
+		given(this.owners.findSummaryById(TEST_OWNER_ID)).willReturn(george(), current);
+		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs").param("address", "123 Caramel Street").param("city", "London")
+				.param("telephone", "01616291589")).andExpect(status().is3xxRedirection());
+		Mockito.verify(this.owners).save(Mockito.same(current));
+		assertThat(current.getLastName()).isEqualTo("Bloggs");
+		assertThat(current.getTelephone()).isEqualTo("01616291589");
 	}
 
 	@Test
@@ -189,6 +252,34 @@ class OwnerControllerTests {
 				.andExpect(view().name("owners/createOrUpdateOwnerForm"));
 	}
 
+	@Test
+	void testProcessUpdateOwnerFormUnknownOwner() throws Exception {
+		mockMvc.perform(post("/owners/{ownerId}/edit", 99).param("firstName", "Joe")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testShowOwnerReadsTheOwnerOnce() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk());
+		Mockito.verify(this.owners).findById(TEST_OWNER_ID);
+		Mockito.verify(this.owners, Mockito.never()).findSummaryById(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testShowOwnerNotModified() throws Exception {
+		given(this.owners.findVersionById(TEST_OWNER_ID)).willReturn(3);
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header("If-None-Match", "W/\"3-en\""))
+				.andExpect(status().isNotModified()).andExpect(header().string("Vary", "Accept-Language"));
+		Mockito.verify(this.owners, Mockito.never()).findById(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testShowOwnerIsTaggedPerLanguage() throws Exception {
+		given(this.owners.findVersionById(TEST_OWNER_ID)).willReturn(3);
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header("Accept-Language", "de").header("If-None-Match",
+				"W/\"3-en\"")).andExpect(status().isOk()).andExpect(header().string("ETag", "W/\"3-de\""))
+				.andExpect(header().string("Vary", "Accept-Language"));
+	}
+
 	@Test
 	void testShowOwner() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk())
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for {@link OwnerExporter} and {@link OwnerExportEndpoint}, against the 10 owners,
+ * 13 pets and 4 visits of the sample data. Owner 6 has two pets with two visits each, all
+ * others have pets without visits.
+ */
+@SpringBootTest(properties = "petclinic.export.fetch-size=4")
+@AutoConfigureMockMvc
+class OwnerExporterTests {
+
+	@Autowired
+	private OwnerExporter exporter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void exportsEachOwnerWithItsPetsAndVisitsOnALineOfNdjson() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		OwnerExportReport report = this.exporter.export(output, OwnerFileFormat.NDJSON);
+
+		assertThat(report.getOwners()).isEqualTo(10);
+		assertThat(report.getPets()).isEqualTo(13);
+		assertThat(report.getVisits()).isEqualTo(4);
+		assertThat(report.getRows()).isEqualTo(15);
+		List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+		assertThat(lines).hasSize(10);
+		OwnerResource owner = this.objectMapper.readValue(lines.get(5), OwnerResource.class);
+		assertThat(owner.id()).isEqualTo(6);
+		assertThat(owner.lastName()).isEqualTo("Coleman");
+		assertThat(owner.pets()).extracting(pet -> pet.name()).containsExactly("Samantha", "Max");
+		assertThat(owner.pets().get(0).type()).isEqualTo("cat");
+		assertThat(owner.pets().get(0).visits()).extracting(visit -> visit.description()).containsExactly("rabies shot",
+				"spayed");
+	}
+
+	@Test
+	void exportsAVisitPerCsvRowThatTheImporterReads() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		OwnerExportReport report = this.exporter.export(output, OwnerFileFormat.CSV);
+
+		List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+		assertThat(lines).hasSize((int) report.getRows() + 1);
+		assertThat(lines.get(0)).isEqualTo(String.join(",", OwnerExporter.CSV_COLUMNS))
+				.contains(String.join(",", OwnerFileFormat.CSV_COLUMNS.subList(0, 5)));
+		assertThat(lines).contains(
+				"1,George,Franklin,\"110 W. Liberty St.\",Madison,6085551023,1,Leo,2010-09-07,cat,,,",
+				"6,Jean,Coleman,\"105 N. Lake St.\",Monona,6085552654,7,Samantha,2012-09-04,cat,1,2013-01-01,\"rabies shot\"");
+	}
+
+	@Test
+	void exportsToAGzippedFileInTheFormatOfItsName(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("owners.csv.gz");
+		OwnerExportReport report = this.exporter.export(file);
+
+		assertThat(report.getFile()).isEqualTo(file.toString());
+		try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+			assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8))
+					.startsWith(String.join(",", OwnerExporter.CSV_COLUMNS) + "\n");
+		}
+	}
+
+	@Test
+	void exportEndpointWritesANewFile() throws Exception {
+		String file = this.objectMapper
+				.readTree(this.mockMvc
+						.perform(post("/actuator/export").contentType(MediaType.APPLICATION_JSON)
+								.content("{\"gzip\":true}"))
+						.andExpect(status().isOk()).andExpect(jsonPath("$.owners").value(10)).andReturn().getResponse()
+						.getContentAsString())
+				.get("file").asText();
+
+		assertThat(file).endsWith(".ndjson.gz");
+		assertThat(Files.deleteIfExists(Path.of(file))).isTrue();
+		this.mockMvc.perform(
+				post("/actuator/export").contentType(MediaType.APPLICATION_JSON).content("{\"format\":\"xml\"}"))
+				.andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.OwnerImportReport.RowError;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests for {@link OwnerImporter} and {@link OwnerImportController}. Owners are saved two
+ * at a time, each test imports owners with a last name of its own.
+ */
+@SpringBootTest(properties = "petclinic.import.chunk-size=2")
+@AutoConfigureMockMvc
+class OwnerImporterTests {
+
+	private static final String CSV_HEADER = String.join(",", OwnerFileFormat.CSV_COLUMNS) + "\n";
+
+	@Autowired
+	private OwnerImporter importer;
+
+	@Autowired
+	private OwnerService owners;
+
+	@Autowired
+	private OwnerNameIndex ownerNames;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerSearchIndex searchIndex;
+
+	@Test
+	void importsCsvRowsOfTheSameOwnerAndPetAsOne() throws Exception {
+		OwnerImportReport report = importOwners(OwnerFileFormat.CSV, CSV_HEADER
+				+ "Ada,Lovelace,12 St James's Sq.,London,0123456789,Ruby,2019-03-01,dog,2020-01-02,rabies shot\n"
+				+ "Ada,Lovelace,12 St James's Sq.,London,0123456789,Ruby,2019-03-01,dog,2020-06-01,check-up\n"
+				+ "Ada,Lovelace,12 St James's Sq.,London,0123456789,Pearl,2020-05-05,Cat,,\n"
+				+ "Byron,Lovelace,1 Piccadilly,London,0987654321,,,,,\n");
+
+		assertThat(report.getErrors()).isEmpty();
+		assertThat(report.getOwners()).isEqualTo(2);
+		assertThat(report.getPets()).isEqualTo(2);
+		assertThat(report.getVisits()).isEqualTo(2);
+		List<OwnerSummary> imported = this.owners.findOwners("Lovelace", Pageable.ofSize(10)).getContent();
+		assertThat(imported).extracting(OwnerSummary::getFirstName).containsExactly("Ada", "Byron");
+		Owner ada = this.owners.findOwnerDetails(imported.get(0).getId());
+		assertThat(ada.getPets())
+				.extracting(Pet::getName, pet -> pet.getType().getName(), pet -> pet.getVisits().size())
+				.containsExactly(tuple("Pearl", "cat", 0), tuple("Ruby", "dog", 2));
+		assertThat(this.ownerNames.suggest("Lovel", 10)).containsExactly("Lovelace");
+		verify(this.searchIndex, atLeastOnce()).load();
+	}
+
+	@Test
+	void rejectsInvalidOwnersWithTheirLineAndImportsTheOthers() throws Exception {
+		OwnerImportReport report = importOwners(OwnerFileFormat.NDJSON,
+				"""
+						{"firstName":"Grace","lastName":"Hopper","address":"1 Navy Way","city":"Arlington","telephone":"0123456789"}
+						{"firstName":"Alan","lastName":"Hopper","address":"1 Navy Way","city":"Arlington","telephone":"call me"}
+
+						{"firstName":"Anita","lastName":"Hopper","address":"2 Navy Way","city":"Arlington","telephone":"0123456789",\
+						"pets":[{"name":"Rex","birthDate":"2019-03-01","type":"dragon"},{"name":"Tom","type":"cat"}]}
+						{"firstName":"Edsger","lastName":"Hopper",
+						{"firstName":"John","lastName":"Hopper","address":"3 Navy Way","city":"Arlington","telephone":"0123456789",\
+						"pets":[{"name":"Rex","birthDate":"2019-03-01","type":"dog","visits":[{"date":"2020-01-02"}]}]}
+						""");
+
+		assertThat(report.getOwners()).isOne();
+		assertThat(report.getRejected()).isEqualTo(4);
+		assertThat(report.getErrors()).extracting(RowError::line).containsExactly(2L, 4L, 5L, 6L);
+		assertThat(report.getErrors().get(0).message()).startsWith("telephone ");
+		assertThat(report.getErrors().get(1).message())
+				.isEqualTo("pet Rex: type dragon is unknown, pet Tom: birthDate required");
+		assertThat(report.getErrors().get(2).message()).startsWith("unreadable: ");
+		assertThat(report.getErrors().get(3).message()).startsWith("pet Rex: visit on 2020-01-02: description ");
+		assertThat(this.owners.findOwners("Hopper", Pageable.ofSize(10)).getContent())
+				.extracting(OwnerSummary::getFirstName).containsExactly("Grace");
+	}
+
+	@Test
+	void rejectsOnlyTheOwnersThatCannotBeSaved() throws Exception {
+		String tooLong = "T".repeat(31);
+		OwnerImportReport report = importOwners(OwnerFileFormat.CSV,
+				CSV_HEADER + "Alonzo,Church,1 Main St.,Princeton,0123456789,,,,,\n" //
+						+ tooLong + ",Church,2 Main St.,Princeton,0123456789,,,,,\n" //
+						+ "Stephen,Church,3 Main St.,Princeton,0123456789,,,,,\n");
+
+		// the first two make up a chunk, which is saved again one owner at a time
+		assertThat(report.getOwners()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RowError::line).containsExactly(3L);
+		assertThat(report.getErrors().get(0).message()).startsWith("not saved: ");
+		assertThat(this.owners.findOwners("Church", Pageable.ofSize(10)).getContent())
+				.extracting(OwnerSummary::getFirstName).containsExactlyInAnyOrder("Alonzo", "Stephen");
+	}
+
+	@Test
+	void importsPostedCsvAndNdjson() throws Exception {
+		this.mockMvc
+				.perform(post("/owners/import").contentType("text/csv")
+						.content(CSV_HEADER + "Barbara,Liskov,1 Main St.,Boston,0123456789,Rex,2019-03-01,dog,,\n"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.owners").value(1))
+				.andExpect(jsonPath("$.pets").value(1));
+		this.mockMvc
+				.perform(post("/owners/import").contentType(MediaType.APPLICATION_NDJSON)
+						.content("{\"firstName\":\"Kristen\",\"lastName\":\"Liskov\"}\n"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.owners").value(0))
+				.andExpect(jsonPath("$.errors[0].line").value(1))
+				.andExpect(jsonPath("$.errors[0].message", containsString("address")));
+	}
+
+	private OwnerImportReport importOwners(OwnerFileFormat format, String input) throws Exception {
+		return this.importer.importOwners(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format);
+	}
+
+}
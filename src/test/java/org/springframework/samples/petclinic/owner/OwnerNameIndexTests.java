@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OwnerNameIndex}.
+ */
+class OwnerNameIndexTests {
+
+	private final OwnerRepository owners = mock(OwnerRepository.class);
+
+	private final OwnerNameIndex index = new OwnerNameIndex(this.owners);
+
+	@BeforeEach
+	void load() {
+		given(this.owners.findAllNames()).willReturn(List.of(name(1, "Franklin"), name(2, "Davis"), name(3, "Davis"),
+				name(4, "McTavish"), name(5, "Escobito"), name(6, "Estaban")));
+		this.index.load();
+	}
+
+	@Test
+	void suggestsLastNamesStartingWithThePrefixInOrder() {
+		assertThat(this.index.suggest("Es", 10)).containsExactly("Escobito", "Estaban");
+		assertThat(this.index.suggest("Franklin", 10)).containsExactly("Franklin");
+		assertThat(this.index.suggest("Fz", 10)).isEmpty();
+	}
+
+	@Test
+	void ignoresCase() {
+		assertThat(this.index.suggest("mct", 10)).containsExactly("McTavish");
+		assertThat(this.index.suggest("ESC", 10)).containsExactly("Escobito");
+	}
+
+	@Test
+	void listsEachLastNameOnce() {
+		assertThat(this.index.suggest("d", 10)).containsExactly("Davis");
+	}
+
+	@Test
+	void limitsTheNumberOfSuggestions() {
+		assertThat(this.index.suggest("", 3)).containsExactly("Davis", "Escobito", "Estaban");
+		assertThat(this.index.suggest("e", 0)).isEmpty();
+	}
+
+	@Test
+	void followsAddedAndRenamedOwners() {
+		this.index.put(7, "Black");
+		this.index.put(1, "Frankl");
+		this.index.put(2, "Doe");
+
+		assertThat(this.index.suggest("b", 10)).containsExactly("Black");
+		assertThat(this.index.suggest("frank", 10)).containsExactly("Frankl");
+		// owner 3 is still a Davis
+		assertThat(this.index.suggest("d", 10)).containsExactly("Davis", "Doe");
+
+		this.index.put(3, "Doe");
+		assertThat(this.index.suggest("d", 10)).containsExactly("Doe");
+	}
+
+	@Test
+	void keepsOwnersRenamedWhileLoading() {
+		OwnerNameIndex index = new OwnerNameIndex(this.owners);
+		given(this.owners.findAllNames()).willAnswer(invocation -> {
+			// owner 1 is renamed after its old name was read
+			index.put(1, "Frankl");
+			return List.of(name(1, "Franklin"), name(2, "Davis"));
+		});
+		index.load();
+
+		assertThat(index.suggest("frank", 10)).containsExactly("Frankl");
+		assertThat(index.suggest("d", 10)).containsExactly("Davis");
+	}
+
+	private static OwnerRepository.OwnerName name(Integer id, String lastName) {
+		return new OwnerRepository.OwnerName() {
+
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public String getLastName() {
+				return lastName;
+			}
+
+		};
+	}
+
+}
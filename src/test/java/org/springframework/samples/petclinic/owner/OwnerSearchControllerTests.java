@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.OwnerSearchResult.Kind;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link OwnerSearchController}
+ */
+@WebMvcTest(OwnerSearchController.class)
+class OwnerSearchControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerSearchIndex index;
+
+	@BeforeEach
+	void setup() {
+		OwnerSearchResult visit = new OwnerSearchResult(Kind.VISIT, 6, "Visit of Samantha on 2013-01-01", "rabies shot",
+				1.5f);
+		given(this.index.search(eq("rabies"), any(Pageable.class)))
+				.willAnswer(invocation -> new PageImpl<>(List.of(visit), invocation.getArgument(1), 11));
+	}
+
+	@Test
+	void testShowResults() throws Exception {
+		mockMvc.perform(get("/owners/search").param("q", "rabies").param("page", "2")).andExpect(status().isOk())
+				.andExpect(view().name("owners/searchResults")).andExpect(model().attribute("currentPage", 2))
+				.andExpect(model().attribute("totalPages", 2))
+				.andExpect(content().string(containsString("Visit of Samantha on 2013-01-01")))
+				.andExpect(content().string(containsString("/owners/6")));
+		then(this.index).should().search("rabies", PageRequest.of(1, 10));
+	}
+
+	@Test
+	void testShowEmptyForm() throws Exception {
+		given(this.index.search(eq(""), any(Pageable.class))).willReturn(new PageImpl<>(List.of()));
+		mockMvc.perform(get("/owners/search")).andExpect(status().isOk()).andExpect(view().name("owners/searchResults"))
+				.andExpect(model().attribute("totalItems", 0L));
+	}
+
+	@Test
+	void testShowResourcesResults() throws Exception {
+		mockMvc.perform(get("/owners/search").param("q", "rabies").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.content[0].kind").value("VISIT"))
+				.andExpect(jsonPath("$.content[0].ownerId").value(6)).andExpect(jsonPath("$.totalElements").value(11));
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.owner.OwnerSearchResult.Kind;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests for {@link OwnerSearchIndex} against the sample data, and for keeping it up to
+ * date as owners, pets and visits are saved through the web layer.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OwnerSearchIndexTests {
+
+	@Autowired
+	private OwnerSearchIndex index;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void findsVisitsByStemmedDescription() {
+		Page<OwnerSearchResult> results = search("spay");
+		assertThat(results.getTotalElements()).isOne();
+		OwnerSearchResult visit = results.getContent().get(0);
+		assertThat(visit.kind()).isEqualTo(Kind.VISIT);
+		assertThat(visit.ownerId()).isEqualTo(6);
+		assertThat(visit.title()).isEqualTo("Visit of Samantha on 2013-01-04");
+		assertThat(visit.detail()).isEqualTo("spayed");
+	}
+
+	@Test
+	void requiresAllWords() {
+		assertThat(search("rabies").getContent()).extracting(OwnerSearchResult::title)
+				.containsExactlyInAnyOrder("Visit of Samantha on 2013-01-01", "Visit of Max on 2013-01-02");
+		assertThat(search("rabies max").getContent()).extracting(OwnerSearchResult::title)
+				.containsExactly("Visit of Max on 2013-01-02");
+	}
+
+	@Test
+	void ranksNamesAboveOtherText() {
+		// Max the pet is named Max, his visits only mention him
+		OwnerSearchResult first = search("max").getContent().get(0);
+		assertThat(first.kind()).isEqualTo(Kind.PET);
+		assertThat(first.detail()).isEqualTo("cat of Jean Coleman");
+	}
+
+	@Test
+	void findsOwnersByPrefixAndTelephone() {
+		assertThat(search("frank*").getContent()).extracting(OwnerSearchResult::title).contains("George Franklin");
+		assertThat(search("6085551023").getContent()).extracting(OwnerSearchResult::ownerId).containsExactly(1);
+	}
+
+	@Test
+	void pagesResults() {
+		Page<OwnerSearchResult> all = search("madison");
+		assertThat(all.getTotalElements()).isGreaterThan(2);
+		Page<OwnerSearchResult> second = this.index.search("madison", PageRequest.of(1, 2));
+		assertThat(second.getTotalElements()).isEqualTo(all.getTotalElements());
+		assertThat(second.getContent()).isEqualTo(all.getContent().subList(2, Math.min(4, all.getNumberOfElements())));
+	}
+
+	@Test
+	void findsNothingWithoutWords() {
+		assertThat(search("")).isEmpty();
+		assertThat(search("the")).isEmpty();
+		assertThat(search("zzzz")).isEmpty();
+	}
+
+	@Test
+	void followsSavedOwnersPetsAndVisits() throws Exception {
+		String location = this.mockMvc
+				.perform(post("/owners/new").param("firstName", "Joe").param("lastName", "Quimby")
+						.param("address", "1 Main Street").param("city", "Springfield").param("telephone", "5551234"))
+				.andReturn().getResponse().getRedirectedUrl();
+		int ownerId = Integer.parseInt(location.substring(location.lastIndexOf('/') + 1));
+		assertThat(awaitResults("quimby").getContent()).extracting(OwnerSearchResult::ownerId).containsExactly(ownerId);
+
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/new", ownerId).param("name", "Zephyr").param("type", "bird")
+				.param("birthDate", "2020-05-01"));
+		assertThat(awaitResults("zephyr").getContent()).extracting(OwnerSearchResult::detail)
+				.containsExactly("bird of Joe Quimby");
+
+		int petId = this.owners.findById(ownerId).getPet("Zephyr").getId();
+		this.mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", ownerId, petId)
+				.param("date", "2021-03-04").param("description", "deworming"));
+		assertThat(awaitResults("deworm zephyr").getContent()).extracting(OwnerSearchResult::title)
+				.containsExactly("Visit of Zephyr on 2021-03-04");
+	}
+
+	@Test
+	void readsAnOwnerThatChangesDuringItsUpdateAgainAfterwards() throws Exception {
+		OwnerSearchRepository repository = mock(OwnerSearchRepository.class);
+		OwnerSearchIndex index = new OwnerSearchIndex(repository);
+		OwnerSearchRepository.OwnerRow before = ownerRow("Franklin");
+		OwnerSearchRepository.OwnerRow after = ownerRow("Franklyn");
+		given(repository.findOwnerRows(1)).willAnswer(invocation -> {
+			// saved again while the first change is being indexed
+			index.ownerChanged(new OwnerChangedEvent(1));
+			return List.of(before);
+		}).willReturn(List.of(after));
+
+		index.ownerChanged(new OwnerChangedEvent(1));
+		verify(repository, times(2)).findOwnerRows(1);
+		assertThat(index.search("franklyn", PageRequest.ofSize(10))).hasSize(1);
+		assertThat(index.search("franklin", PageRequest.ofSize(10))).isEmpty();
+		index.destroy();
+	}
+
+	private static OwnerSearchRepository.OwnerRow ownerRow(String lastName) {
+		OwnerSearchRepository.OwnerRow row = mock(OwnerSearchRepository.OwnerRow.class);
+		given(row.getOwnerId()).willReturn(1);
+		given(row.getFirstName()).willReturn("George");
+		given(row.getLastName()).willReturn(lastName);
+		return row;
+	}
+
+	private Page<OwnerSearchResult> search(String text) {
+		return this.index.search(text, PageRequest.ofSize(10));
+	}
+
+	/**
+	 * The index is updated on another thread after each save.
+	 */
+	private Page<OwnerSearchResult> awaitResults(String text) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		Page<OwnerSearchResult> results = search(text);
+		while (results.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			results = search(text);
+		}
+		return results;
+	}
+
+}
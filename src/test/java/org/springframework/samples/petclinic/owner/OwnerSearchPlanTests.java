@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.abort;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks with the database's own EXPLAIN that the owner search by last name prefix is an
+ * index range scan on {@code search_last_name}, also returning rows in the order of the
+ * search. Runs against the database of the active profile, e.g.
+ * {@code ./mvnw test -Dtest=OwnerSearchPlanTests -Dspring.profiles.active=postgres} with
+ * a PostgreSQL server running.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class OwnerSearchPlanTests {
+
+	// the condition and order of the queries in OwnerRepository, with a lower-cased term
+	private static final String SEARCH = "SELECT id, last_name FROM owners %s WHERE search_last_name LIKE 'dav%%' "
+			+ "ORDER BY search_last_name, id";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${database}")
+	private String database;
+
+	@Test
+	void searchByLastNamePrefixIsAnIndexRangeScan() {
+		switch (this.database) {
+		case "h2" -> {
+			String plan = this.jdbcTemplate.queryForObject("EXPLAIN " + SEARCH.formatted(""), String.class);
+			assertThat(plan).contains("OWNERS_SEARCH_LAST_NAME: SEARCH_LAST_NAME >= 'dav'")
+					.contains("SEARCH_LAST_NAME < 'daw'").doesNotContain("tableScan");
+		}
+		case "mysql" -> {
+			// with only a few rows MySQL prefers a table scan, so force the index: the
+			// access type still shows whether the LIKE condition can narrow it
+			Map<String, Object> plan = this.jdbcTemplate
+					.queryForMap("EXPLAIN " + SEARCH.formatted("FORCE INDEX (owners_search_last_name)"));
+			assertThat(plan).containsEntry("type", "range").containsEntry("key", "owners_search_last_name");
+			assertThat((String) plan.get("Extra")).doesNotContain("filesort");
+		}
+		case "postgres" -> {
+			// likewise, rule out the sequential scan PostgreSQL prefers for a few rows
+			this.jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+			String plan = String.join("\n",
+					this.jdbcTemplate.queryForList("EXPLAIN " + SEARCH.formatted(""), String.class));
+			assertThat(plan).contains("owners_search_last_name").contains("Index Cond")
+					.contains("search_last_name >= 'dav'").doesNotContain("Sort");
+		}
+		default -> abort("No expected plan for " + this.database);
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwnerTests {
+
+	@Test
+	void testPetsAreSortedByNameAndReused() {
+		Owner owner = new Owner();
+		owner.addPet(pet("Max"));
+		owner.addPet(pet("Leo"));
+		assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Leo", "Max");
+		assertThat(owner.getPets()).isSameAs(owner.getPets());
+
+		owner.addPet(pet("Basil"));
+		assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Leo", "Max");
+		assertThat(owner.getPet("basil")).isNotNull();
+	}
+
+	private static Pet pet(String name) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		return pet;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the JDBC statements issued by the pet and visit endpoints, which must not grow
+ * with the number of pets or visits an owner has. Owner 1 has a single pet with no
+ * visits, owner 6 has two pets with two visits each. Each change also increments the
+ * owner's version, in one statement. The search index, which reads the owner again after
+ * each save, is left out.
+ * <p>
+ * The changes are committed, so each test gets a fresh context and database: the counts
+ * do not depend on what other tests saved, or on their order.
+ */
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class PetAndVisitStatementCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private OwnerSearchIndex searchIndex;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void initCreationFormLoadsOwnerOnce() throws Exception {
+		// the owner without its pets; pet types come from the cache warmed at startup
+		assertThat(statementCount(get("/owners/{ownerId}/pets/new", 1))).isEqualTo(1);
+		assertThat(statementCount(get("/owners/{ownerId}/pets/new", 6))).isEqualTo(1);
+	}
+
+	@Test
+	void processCreationFormLoadsOwnerOnce() throws Exception {
+		// allocate a block of pet ids first, so that no sequence call is counted below
+		statementCount(post("/owners/{ownerId}/pets/new", 1).param("name", "Pepper").param("type", "dog")
+				.param("birthDate", "2015-02-12"));
+		// the owner with its pets, the insert of the pet, the update of the owner's
+		// version
+		assertThat(statementCount(post("/owners/{ownerId}/pets/new", 1).param("name", "Ginger").param("type", "dog")
+				.param("birthDate", "2015-02-12"))).isEqualTo(3);
+		assertThat(statementCount(post("/owners/{ownerId}/pets/new", 6).param("name", "Ginger").param("type", "dog")
+				.param("birthDate", "2015-02-12"))).isEqualTo(3);
+	}
+
+	@Test
+	void initUpdateFormLoadsOwnerOnce() throws Exception {
+		// the owner with its pets
+		assertThat(statementCount(get("/owners/{ownerId}/pets/{petId}/edit", 1, 1))).isEqualTo(1);
+		assertThat(statementCount(get("/owners/{ownerId}/pets/{petId}/edit", 6, 7))).isEqualTo(1);
+	}
+
+	@Test
+	void processUpdateFormLoadsOwnerOnce() throws Exception {
+		// the owner with its pets and the increment of its version; the pets are posted
+		// unchanged, so they are not updated
+		assertThat(statementCount(post("/owners/{ownerId}/pets/{petId}/edit", 1, 1).param("name", "Leo")
+				.param("type", "cat").param("birthDate", "2010-09-07"))).isEqualTo(2);
+		assertThat(statementCount(post("/owners/{ownerId}/pets/{petId}/edit", 6, 7).param("name", "Samantha")
+				.param("type", "cat").param("birthDate", "2012-09-04"))).isEqualTo(2);
+	}
+
+	@Test
+	void initNewVisitFormLoadsOwnerAndPetOnce() throws Exception {
+		// the owner without its pets, the pet with its type and visits
+		assertThat(statementCount(get("/owners/{ownerId}/pets/{petId}/visits/new", 1, 1))).isEqualTo(2);
+		assertThat(statementCount(get("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7))).isEqualTo(2);
+	}
+
+	@Test
+	void processNewVisitFormChecksPetAndInsertsVisitAndIncrementsOwnerVersion() throws Exception {
+		// allocate a block of visit ids first, so that no sequence call is counted below
+		statementCount(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, 1).param("date", "2013-01-01")
+				.param("description", "check-up"));
+		// the check that the pet is the owner's, the insert of the visit, the increment
+		// of
+		// the owner's version
+		assertThat(statementCount(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, 1).param("date", "2013-01-01")
+				.param("description", "rabies shot"))).isEqualTo(3);
+		assertThat(statementCount(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("date", "2013-01-01")
+				.param("description", "rabies shot"))).isEqualTo(3);
+	}
+
+	@Test
+	void ownerDetailsAreCachedUntilTheOwnerIsSaved() throws Exception {
+		statementCount(get("/owners/{ownerId}", 6));
+		// served from the owners cache
+		assertThat(statementCount(get("/owners/{ownerId}", 6))).isZero();
+
+		statementCount(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("date", "2013-01-02")
+				.param("description", "cached visit"));
+		this.statistics.clear();
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(content().string(containsString("cached visit")));
+		// the owner with its pets and their visits, evicted by the save
+		assertThat(this.statistics.getPrepareStatementCount()).isOne();
+	}
+
+	@Test
+	void revalidatingOwnerDetailsOnlyReadsTheVersion() throws Exception {
+		String etag = this.mockMvc.perform(get("/owners/{ownerId}", 6)).andReturn().getResponse().getHeader("ETag");
+		this.statistics.clear();
+		this.mockMvc.perform(get("/owners/{ownerId}", 6).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+		// the owner's version
+		assertThat(this.statistics.getPrepareStatementCount()).isOne();
+
+		statementCount(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("date", "2013-01-03")
+				.param("description", "revalidated visit"));
+		this.mockMvc.perform(get("/owners/{ownerId}", 6).header("If-None-Match", etag)).andExpect(status().isOk())
+				.andExpect(content().string(containsString("revalidated visit")));
+	}
+
+	private long statementCount(RequestBuilder request) throws Exception {
+		this.statistics.clear();
+		int status = this.mockMvc.perform(request).andReturn().getResponse().getStatus();
+		assertThat(status).isLessThan(400);
+		return this.statistics.getPrepareStatementCount();
+	}
+
+}
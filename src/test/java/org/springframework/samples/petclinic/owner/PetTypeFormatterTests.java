@@ -73,6 +73,21 @@ class PetTypeFormatterTests {
 		});
 	}
 
+	@Test
+	void shouldPickUpReloadedPetTypes() throws ParseException {
+		List<PetType> reloaded = makePetTypes();
+		reloaded.add(new PetType() {
+			{
+				setName("Fish");
+			}
+		});
+		given(this.pets.findPetTypes()).willReturn(makePetTypes(), reloaded);
+		Assertions.assertThrows(ParseException.class, () -> {
+			petTypeFormatter.parse("Fish", Locale.ENGLISH);
+		});
+		assertThat(petTypeFormatter.parse("Fish", Locale.ENGLISH).getName()).isEqualTo("Fish");
+	}
+
 	/**
 	 * Helper method to produce some sample pet types just for test purpose
 	 * @return {@link Collection} of {@link PetType}
@@ -16,7 +16,11 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -28,6 +32,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 
 /**
@@ -35,6 +40,7 @@ import org.springframework.test.web.servlet.MockMvc;
  *
  * @author Colin But
  */
+@Import(OwnerService.class)
 @WebMvcTest(VisitController.class)
 class VisitControllerTests {
 
@@ -48,13 +54,18 @@ class VisitControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private VisitRepository visits;
+
 	@BeforeEach
 	void init() {
 		Owner owner = new Owner();
 		Pet pet = new Pet();
 		owner.addPet(pet);
 		pet.setId(TEST_PET_ID);
-		given(this.owners.findById(TEST_OWNER_ID)).willReturn(owner);
+		given(this.owners.findSummaryById(TEST_OWNER_ID)).willReturn(owner);
+		given(this.owners.findPetById(TEST_OWNER_ID, TEST_PET_ID)).willReturn(pet);
+		given(this.visits.addVisit(eq(TEST_OWNER_ID), eq(TEST_PET_ID), any(Visit.class))).willReturn(true);
 	}
 
 	@Test
@@ -68,6 +79,13 @@ class VisitControllerTests {
 		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID)
 				.param("name", "George").param("description", "Visit Description"))
 				.andExpect(status().is3xxRedirection()).andExpect(view().name("redirect:/owners/{ownerId}"));
+		then(this.owners).should(never()).findSummaryById(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testProcessNewVisitFormUnknownPet() throws Exception {
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, 99).param("description",
+				"Visit Description")).andExpect(status().isNotFound());
 	}
 
 	@Test
@@ -20,25 +20,38 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerService;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetType;
 import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitRepository;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.Persistence;
+
 /**
  * Integration test of the Service and the Repository layer.
  * <p>
@@ -67,7 +80,8 @@ import org.springframework.transaction.annotation.Transactional;
  * @author Michael Isvy
  * @author Dave Syer
  */
-@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class))
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class),
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 // Ensure that if the mysql profile is active we connect to the real database:
 @AutoConfigureTestDatabase(replace = Replace.NONE)
 // @TestPropertySource("/application-postgres.properties")
@@ -76,9 +90,18 @@ class ClinicServiceTests {
 	@Autowired
 	protected OwnerRepository owners;
 
+	@Autowired
+	protected VisitRepository visits;
+
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected OwnerService ownerService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
 	Pageable pageable;
 
 	@Test
@@ -88,6 +111,42 @@ class ClinicServiceTests {
 
 		owners = this.owners.findByLastName("Daviss", pageable);
 		assertThat(owners).isEmpty();
+
+		owners = this.owners.findByLastName("dAV", pageable);
+		assertThat(owners).hasSize(2);
+	}
+
+	@Test
+	void shouldFindOwnerSummariesWithPetNamesByLastName() {
+		Page<OwnerSummary> summaries = this.owners.findSummariesByLastName("Davis", PageRequest.of(0, 5));
+		assertThat(summaries.getTotalElements()).isEqualTo(2);
+		assertThat(summaries).extracting(OwnerSummary::getFirstName).containsExactly("Betty", "Harold");
+
+		List<Integer> ownerIds = summaries.map(OwnerSummary::getId).toList();
+		assertThat(this.owners.findPetNamesByOwnerIds(ownerIds)).extracting(OwnerRepository.PetName::getName)
+				.containsExactly("Basil", "Iggy");
+	}
+
+	@Test
+	void shouldFindFirstOwnerSummariesWithoutCounting() {
+		Slice<OwnerSummary> first = this.owners.findSummarySliceByLastName("", PageRequest.ofSize(3));
+		assertThat(first).isNotInstanceOf(Page.class);
+		assertThat(first).extracting(OwnerSummary::getLastName).containsExactly("Black", "Coleman", "Davis");
+		assertThat(first.hasNext()).isTrue();
+	}
+
+	@Test
+	void shouldFindOwnerSummariesAfterKeyset() {
+		Slice<OwnerSummary> first = this.owners.findSummariesByLastNameAfter("", "Coleman", 6, PageRequest.ofSize(3));
+		assertThat(first).extracting(OwnerSummary::getId).containsExactly(2, 4, 8);
+		assertThat(first.hasNext()).isTrue();
+
+		Slice<OwnerSummary> next = this.owners.findSummariesByLastNameAfter("E", "ESCOBITO", 8, PageRequest.ofSize(3));
+		assertThat(next).extracting(OwnerSummary::getLastName).containsExactly("Estaban");
+
+		Slice<OwnerSummary> last = this.owners.findSummariesByLastNameAfter("", "Rodriquez", 3, PageRequest.ofSize(3));
+		assertThat(last).extracting(OwnerSummary::getLastName).containsExactly("Schroeder");
+		assertThat(last.hasNext()).isFalse();
 	}
 
 	@Test
@@ -99,6 +158,31 @@ class ClinicServiceTests {
 		assertThat(owner.getPets().get(0).getType().getName()).isEqualTo("cat");
 	}
 
+	@Test
+	void shouldLoadOnlyTheRequestedAssociations() {
+		Owner summary = this.owners.findSummaryById(6);
+		assertThat(Persistence.getPersistenceUtil().isLoaded(summary, "pets")).isFalse();
+
+		Owner withPets = this.owners.findWithPetsById(6);
+		assertThat(Persistence.getPersistenceUtil().isLoaded(withPets, "pets")).isTrue();
+		assertThat(withPets.getPets()).hasSize(2)
+				.allSatisfy(pet -> assertThat(Hibernate.isInitialized(pet.getVisits())).isFalse());
+
+		Owner withVisits = this.owners.findById(6);
+		assertThat(withVisits.getPets()).hasSize(2)
+				.allSatisfy(pet -> assertThat(Hibernate.isInitialized(pet.getVisits())).isTrue());
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldLoadEachPetOnceWithItsVisits() {
+		// outside of a transaction, so that the owner is read afresh with its pets and
+		// visits
+		Owner owner6 = this.owners.findById(6);
+		assertThat(owner6.getPets()).extracting(Pet::getName).containsExactly("Max", "Samantha");
+		assertThat(owner6.getPet("Samantha").getVisits()).hasSize(2);
+	}
+
 	@Test
 	@Transactional
 	void shouldInsertOwner() {
@@ -166,6 +250,39 @@ class ClinicServiceTests {
 		assertThat(pet.getId()).isNotNull();
 	}
 
+	@Test
+	void shouldBatchInsertsOfAnOwnerWithPetsAndVisits() {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		PetType type = EntityUtils.getById(this.owners.findPetTypes(), PetType.class, 2);
+		for (int i = 0; i < 3; i++) {
+			Pet pet = new Pet();
+			pet.setName("bowser" + i);
+			pet.setType(type);
+			pet.setBirthDate(LocalDate.now());
+			owner.addPet(pet);
+			for (int j = 0; j < 2; j++) {
+				Visit visit = new Visit();
+				visit.setDescription("check-up");
+				pet.addVisit(visit);
+			}
+		}
+
+		Statistics statistics = this.entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.owners.save(owner);
+		this.entityManager.flush();
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(10);
+		// one batched insert per table, plus at most one sequence call per table
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+	}
+
 	@Test
 	@Transactional
 	void shouldUpdatePetName() throws Exception {
@@ -182,6 +299,93 @@ class ClinicServiceTests {
 		assertThat(pet7.getName()).isEqualTo(newName);
 	}
 
+	@Test
+	@Transactional
+	void shouldAddPetUnlessTheOwnerHasOneOfThatName() {
+		PetType cat = EntityUtils.getById(this.owners.findPetTypes(), PetType.class, 1);
+		Pet samantha = new Pet();
+		samantha.setName("samantha");
+		samantha.setType(cat);
+		samantha.setBirthDate(LocalDate.now());
+		assertThat(this.ownerService.addPet(6, samantha)).isFalse();
+
+		Pet sam = new Pet();
+		sam.setName("Sam");
+		sam.setType(cat);
+		sam.setBirthDate(LocalDate.now());
+		assertThat(this.ownerService.addPet(6, sam)).isTrue();
+
+		this.entityManager.flush();
+		this.entityManager.clear();
+		assertThat(this.owners.findWithPetsById(6).getPets()).extracting(Pet::getName).containsExactly("Max", "Sam",
+				"Samantha");
+	}
+
+	@Test
+	@Transactional
+	void shouldUpdatePetKeepingItsTypeWhenNoneIsGiven() {
+		Pet form = new Pet();
+		form.setId(7);
+		form.setName("Sam");
+		form.setBirthDate(LocalDate.of(2012, 9, 5));
+		assertThat(this.ownerService.updatePet(6, form)).isTrue();
+
+		this.entityManager.flush();
+		this.entityManager.clear();
+		Pet pet7 = this.owners.findWithPetsById(6).getPet(7);
+		assertThat(pet7.getName()).isEqualTo("Sam");
+		assertThat(pet7.getBirthDate()).isEqualTo(LocalDate.of(2012, 9, 5));
+		assertThat(pet7.getType().getName()).isEqualTo("cat");
+
+		// pet 1 belongs to owner 1
+		form.setId(1);
+		assertThat(this.ownerService.updatePet(6, form)).isFalse();
+	}
+
+	@Test
+	@Transactional
+	void shouldIncrementOwnerVersionWhenTheOwnerItsPetsOrVisitsChange() {
+		Owner owner = this.entityManager.find(Owner.class, 6);
+		int version = owner.getVersion();
+		owner.setCity("Madison");
+		this.ownerService.saveOwner(owner);
+		this.entityManager.flush();
+		assertThat(this.ownerService.findOwnerVersion(6)).isEqualTo(version + 1);
+
+		Pet form = new Pet();
+		form.setId(7);
+		form.setName("Samantha");
+		this.ownerService.updatePet(6, form);
+		assertThat(this.ownerService.findOwnerVersion(6)).isEqualTo(version + 2);
+
+		Visit visit = new Visit();
+		visit.setDescription("check-up");
+		this.ownerService.addVisit(6, 7, visit);
+		assertThat(this.ownerService.findOwnerVersion(6)).isEqualTo(version + 3);
+	}
+
+	@Test
+	void shouldFindOwnerSummariesPageAfterPage() {
+		Slice<OwnerSummary> first = this.ownerService.findOwnerSummaries("Da", null, null, PageRequest.ofSize(1));
+		assertThat(first.getContent()).extracting(OwnerSummary::getLastName).containsExactly("Davis");
+		assertThat(first.hasNext()).isTrue();
+
+		OwnerSummary last = first.getContent().get(0);
+		Slice<OwnerSummary> second = this.ownerService.findOwnerSummaries("Da", last.getLastName(), last.getId(),
+				PageRequest.ofSize(1));
+		assertThat(second.getContent()).extracting(OwnerSummary::getId).doesNotContain(last.getId());
+	}
+
+	@Test
+	void shouldFindOwnersWithPetsById() {
+		List<Owner> owners = this.ownerService.findOwnersWithPets(List.of(1, 6), true);
+		assertThat(owners).extracting(Owner::getId).containsExactlyInAnyOrder(1, 6);
+		Owner owner6 = owners.stream().filter(owner -> owner.getId() == 6).findFirst().get();
+		assertThat(owner6.getPets()).extracting(Pet::getName).containsExactly("Max", "Samantha");
+		assertThat(owner6.getPet("Samantha").getVisits()).hasSize(2);
+		assertThat(this.ownerService.findOwnersWithPets(List.of(), false)).isEmpty();
+	}
+
 	@Test
 	void shouldFindVets() {
 		Collection<Vet> vets = this.vets.findAll();
@@ -193,6 +397,13 @@ class ClinicServiceTests {
 		assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("surgery");
 	}
 
+	@Test
+	void shouldFindVetsAfterKeyset() {
+		Slice<Vet> vets = this.vets.findAllAfter("Douglas", 3, PageRequest.ofSize(2));
+		assertThat(vets).extracting(Vet::getLastName).containsExactly("Jenkins", "Leary");
+		assertThat(vets.hasNext()).isTrue();
+	}
+
 	@Test
 	@Transactional
 	void shouldAddNewVisitForPet() {
@@ -212,6 +423,29 @@ class ClinicServiceTests {
 				.allMatch(value -> value.getId() != null);
 	}
 
+	@Test
+	@Transactional
+	void shouldAddVisitByPetIdWithoutLoadingTheOwner() {
+		int found = this.owners.findPetById(6, 7).getVisits().size();
+		this.entityManager.clear();
+		Visit visit = new Visit();
+		visit.setDescription("test");
+
+		assertThat(this.visits.addVisit(6, 7, visit)).isTrue();
+		assertThat(visit.getId()).isNotNull();
+		assertThat(this.entityManager.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil()
+				.isLoaded(visit.getPet(), "visits")).isFalse();
+
+		Visit elsewhere = new Visit();
+		elsewhere.setDescription("test");
+		assertThat(this.visits.addVisit(1, 7, elsewhere)).isFalse();
+		assertThat(elsewhere.getId()).isNull();
+
+		this.entityManager.flush();
+		this.entityManager.clear();
+		assertThat(this.owners.findPetById(6, 7).getVisits()).hasSize(found + 1);
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() throws Exception {
 		Owner owner6 = this.owners.findById(6);
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class for {@link DataGenerator}, against its own embedded database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataGeneratorTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VisitRepository visits;
+
+	private DataGenerator generator;
+
+	@BeforeEach
+	void setup() {
+		DataGeneratorProperties properties = new DataGeneratorProperties();
+		properties.setOwners(25);
+		properties.setPetsPerOwner(2);
+		properties.setVisitsPerPet(3);
+		properties.setVets(4);
+		properties.setSpecialties(2);
+		properties.setBatchSize(10);
+		this.generator = new DataGenerator(this.jdbcTemplate, new TransactionTemplate(this.transactionManager),
+				properties, "h2");
+	}
+
+	@Test
+	void shouldGenerateTheSameDataForTheSameSeed() {
+		int owners = count("owners");
+		int pets = count("pets");
+		int visits = count("visits");
+		int vets = count("vets");
+		int specialties = count("specialties");
+
+		this.generator.generate();
+		this.generator.generate();
+
+		assertThat(count("owners")).isEqualTo(owners + 50);
+		assertThat(count("pets")).isEqualTo(pets + 100);
+		assertThat(count("visits")).isEqualTo(visits + 300);
+		assertThat(count("vets")).isEqualTo(vets + 8);
+		assertThat(count("specialties")).isEqualTo(specialties + 4);
+
+		List<String> generated = this.jdbcTemplate.queryForList(
+				"SELECT CONCAT(first_name, ' ', last_name, ', ', city) FROM owners WHERE id > ? ORDER BY id",
+				String.class, owners);
+		assertThat(generated.subList(0, 25)).isEqualTo(generated.subList(25, 50));
+	}
+
+	@Test
+	void shouldContinueIdentityAfterGeneratedRows() {
+		this.generator.generate();
+		int maxId = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class);
+
+		this.jdbcTemplate.update("INSERT INTO owners (first_name, last_name) VALUES ('Jean', 'Coleman')");
+		assertThat(this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class)).isEqualTo(maxId + 1);
+	}
+
+	@Test
+	void shouldLeaveTheIdSequencesPastGeneratedRows() {
+		this.generator.generate();
+		int maxPetId = maxId("pets");
+
+		// Hibernate draws the ids of new owners, pets and visits from the sequences
+		Visit visit = new Visit();
+		visit.setDescription("check-up");
+		assertThat(this.visits.addVisit(1, 1, visit)).isTrue();
+		assertThat(visit.getId()).isEqualTo(maxId("visits"));
+
+		Owner owner = this.owners.findWithPetsById(1);
+		Pet pet = new Pet();
+		pet.setName("Generated");
+		pet.setType(this.owners.findPetTypes().get(0));
+		owner.addPet(pet);
+		this.owners.save(owner);
+		assertThat(maxId("pets")).isGreaterThan(maxPetId);
+	}
+
+	@Test
+	void shouldPickTypesAndSpecialtiesFromTheExistingIds() {
+		// ids past a gap, beyond the number of rows
+		this.jdbcTemplate.update("INSERT INTO types (id, name) VALUES (20, 'ferret')");
+		this.jdbcTemplate.update("INSERT INTO specialties (id, name) VALUES (20, 'exotics')");
+		int firstPetId = maxId("pets") + 1;
+		int firstVetId = maxId("vets") + 1;
+
+		this.generator.generate();
+
+		assertThat(this.jdbcTemplate.queryForList("SELECT DISTINCT type_id FROM pets WHERE id >= ?", Integer.class,
+				firstPetId)).contains(20)
+						.isSubsetOf(this.jdbcTemplate.queryForList("SELECT id FROM types", Integer.class));
+		assertThat(this.jdbcTemplate.queryForList("SELECT DISTINCT specialty_id FROM vet_specialties WHERE vet_id >= ?",
+				Integer.class, firstVetId))
+						.isSubsetOf(this.jdbcTemplate.queryForList("SELECT id FROM specialties", Integer.class));
+	}
+
+	private int maxId(String table) {
+		return this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+	}
+
+	private int count(String table) {
+		return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.samples.petclinic.owner.OwnerSearchIndex;
+import org.springframework.samples.petclinic.owner.OwnerSearchResult;
+import org.springframework.samples.petclinic.owner.OwnerService;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Runs the application against two H2 databases, a primary and a replica that starts with
+ * the same data. Nothing replicates between them, so a row changed in only one of them
+ * shows which one a query used.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "petclinic.datasource.replicas[0].url=" + ReplicaRoutingConfigurationTests.REPLICA_URL)
+class ReplicaRoutingConfigurationTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:petclinic-replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private OwnerService owners;
+
+	@Autowired
+	private OwnerSearchIndex searchIndex;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@BeforeAll
+	static void createReplica() {
+		DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("db/h2/schema.sql"),
+				new ClassPathResource("db/h2/data.sql")).execute(replica);
+		new JdbcTemplate(replica).update("UPDATE owners SET city = 'Replica', version = 5 WHERE id = 2");
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReplica() {
+		assertThat(this.owners.findOwner(2).getCity()).isEqualTo("Replica");
+	}
+
+	@Test
+	void cachedOwnerDetailsAreReadFromThePrimary() {
+		assertThat(this.owners.findOwnerDetails(2).getCity()).isEqualTo("Sun Prairie");
+	}
+
+	@Test
+	void ownerVersionIsReadFromThePrimary() throws Exception {
+		// the tag of a page the replica would still answer with a 304
+		this.mockMvc.perform(get("/owners/2").header("If-None-Match", "W/\"5-en\"")).andExpect(status().isOk());
+	}
+
+	@Test
+	void searchIndexIsUpdatedFromThePrimary() {
+		this.searchIndex.update(2);
+		assertThat(this.searchIndex.search("Prairie", PageRequest.of(0, 10))).extracting(OwnerSearchResult::ownerId)
+				.contains(2);
+		assertThat(this.searchIndex.search("Replica", PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	void everythingElseUsesThePrimary() {
+		assertThat(this.jdbcTemplate.queryForObject("SELECT city FROM owners WHERE id = 2", String.class))
+				.isEqualTo("Sun Prairie");
+	}
+
+	@Test
+	void poolOfThePrimaryIsExposed() throws Exception {
+		assertThat(this.dataSource.unwrap(HikariDataSource.class).getJdbcUrl()).startsWith("jdbc:h2:mem:");
+		assertThat(this.dataSource.unwrap(HikariDataSource.class).getJdbcUrl()).isNotEqualTo(REPLICA_URL);
+	}
+
+}
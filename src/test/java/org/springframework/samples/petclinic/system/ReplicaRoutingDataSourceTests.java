@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests for {@link ReplicaRoutingDataSource}, with one embedded database for the primary
+ * and for each replica. Each database knows its name, so a query shows where it ran.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+
+	private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+	private final MutableClock clock = new MutableClock();
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate readWrite;
+
+	private TransactionTemplate readOnly;
+
+	@AfterEach
+	void shutdown() {
+		this.databases.forEach(EmbeddedDatabase::shutdown);
+	}
+
+	@Test
+	void writesAndNonTransactionalReadsGoToThePrimary() {
+		route(database("primary"), database("replica-0"));
+		assertThat(databaseName()).isEqualTo("primary");
+		assertThat(databaseName(this.readWrite)).isEqualTo("primary");
+	}
+
+	@Test
+	void readOnlyTransactionsTakeTurnsOnTheReplicas() {
+		route(database("primary"), database("replica-0"), database("replica-1"));
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			names.add(databaseName(this.readOnly));
+		}
+		assertThat(names).containsExactly("replica-0", "replica-1", "replica-0", "replica-1");
+	}
+
+	@Test
+	void readOnlyTransactionsFromPrimaryReadsUseThePrimary() {
+		route(database("primary"), database("replica-0"));
+		ProxyFactory proxyFactory = new ProxyFactory(new Reads());
+		proxyFactory.addAdvisor(ReplicaRoutingConfiguration.readFromPrimaryAdvisor());
+		Reads reads = (Reads) proxyFactory.getProxy();
+
+		assertThat(reads.fromPrimary(() -> databaseName(this.readOnly))).isEqualTo("primary");
+		// joining a read-only transaction that has not read anything yet
+		String joined = this.readOnly.execute(status -> reads.fromPrimary(() -> databaseName()));
+		assertThat(joined).isEqualTo("primary");
+		assertThat(reads.fromPrimary(() -> reads.fromPrimary(() -> databaseName(this.readOnly)))).isEqualTo("primary");
+		assertThat(databaseName(this.readOnly)).isEqualTo("replica-0");
+	}
+
+	@Test
+	void failingReplicaIsSkippedUntilTheRetryInterval() {
+		CountingDataSource down = new CountingDataSource(unavailable());
+		route(database("primary"), down, database("replica-1"));
+
+		assertThat(databaseName(this.readOnly)).isEqualTo("replica-1");
+		assertThat(databaseName(this.readOnly)).isEqualTo("replica-1");
+		assertThat(databaseName(this.readOnly)).isEqualTo("replica-1");
+		assertThat(down.attempts).hasValue(1);
+
+		this.clock.advance(RETRY_INTERVAL);
+		assertThat(databaseName(this.readOnly)).isEqualTo("replica-1");
+		assertThat(databaseName(this.readOnly)).isEqualTo("replica-1");
+		assertThat(down.attempts).hasValue(2);
+	}
+
+	@Test
+	void readsFallBackToThePrimaryWithoutReplicas() {
+		route(database("primary"), unavailable());
+		assertThat(databaseName(this.readOnly)).isEqualTo("primary");
+	}
+
+	static class Reads {
+
+		@ReadFromPrimary
+		public String fromPrimary(Supplier<String> read) {
+			return read.get();
+		}
+
+	}
+
+	private void route(DataSource primary, DataSource... replicas) {
+		DataSource dataSource = new LazyConnectionDataSourceProxy(
+				new ReplicaRoutingDataSource(primary, List.of(replicas), RETRY_INTERVAL, this.clock));
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		this.readWrite = new TransactionTemplate(transactionManager);
+		this.readOnly = new TransactionTemplate(transactionManager);
+		this.readOnly.setReadOnly(true);
+	}
+
+	private String databaseName() {
+		return this.jdbcTemplate.queryForObject("SELECT name FROM database_name", String.class);
+	}
+
+	private String databaseName(TransactionTemplate transaction) {
+		return transaction.execute(status -> databaseName());
+	}
+
+	private EmbeddedDatabase database(String name) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true).build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("CREATE TABLE database_name (name VARCHAR(20))");
+		jdbcTemplate.update("INSERT INTO database_name VALUES (?)", name);
+		this.databases.add(database);
+		return database;
+	}
+
+	private static DataSource unavailable() {
+		return new DelegatingDataSource() {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				throw new SQLException("Connection refused");
+			}
+
+		};
+	}
+
+	private static class CountingDataSource extends DelegatingDataSource {
+
+		private final AtomicInteger attempts = new AtomicInteger();
+
+		CountingDataSource(DataSource dataSource) {
+			super(dataSource);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			this.attempts.incrementAndGet();
+			return super.getConnection();
+		}
+
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant instant = Instant.now();
+
+		void advance(Duration duration) {
+			this.instant = this.instant.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+	}
+
+}
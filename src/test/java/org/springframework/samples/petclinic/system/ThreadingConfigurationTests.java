@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Async;
+
+/**
+ * Test class for {@link ThreadingConfiguration}
+ */
+class ThreadingConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+			.withUserConfiguration(ThreadingConfiguration.class, AsyncConfiguration.class);
+
+	@Test
+	void runsOnPlatformThreadsByDefault() {
+		this.contextRunner.run(context -> {
+			assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+			assertThat(context.getBean(AsyncService.class).currentThreadIsVirtual().get()).isFalse();
+		});
+	}
+
+	@Test
+	void runsRequestsAndAsyncMethodsOnVirtualThreadsWhenEnabled() {
+		assumeTrue(Runtime.version().feature() >= 21, "virtual threads require Java 21");
+		this.contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+			assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+			assertThat(context.getBean(AsyncService.class).currentThreadIsVirtual().get()).isTrue();
+		});
+	}
+
+	@Test
+	void failsToStartWithVirtualThreadsBeforeJava21() {
+		assumeTrue(Runtime.version().feature() < 21, "virtual threads are available");
+		this.contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+			assertThat(context).hasFailed();
+			assertThat(context.getStartupFailure()).hasStackTraceContaining("Virtual threads require Java 21");
+		});
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class AsyncConfiguration {
+
+		@Bean
+		AsyncService asyncService() {
+			return new AsyncService();
+		}
+
+	}
+
+	static class AsyncService {
+
+		@Async
+		public CompletableFuture<Boolean> currentThreadIsVirtual() {
+			// Thread.isVirtual() is Java 21 API, the name is the portable way to tell
+			return CompletableFuture.completedFuture(Thread.currentThread().toString().startsWith("VirtualThread"));
+		}
+
+	}
+
+}
@@ -22,14 +22,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +43,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Test class for the {@link VetController}
  */
 
+@Import(VetService.class)
 @WebMvcTest(VetController.class)
 class VetControllerTests {
 
@@ -47,6 +53,9 @@ class VetControllerTests {
 	@MockBean
 	private VetRepository vets;
 
+	@MockBean
+	private VetStreamWriter vetStreamWriter;
+
 	private Vet james() {
 		Vet james = new Vet();
 		james.setFirstName("James");
@@ -83,6 +92,17 @@ class VetControllerTests {
 
 	}
 
+	@Test
+	void testShowVetListHtmlAfterKeyset() throws Exception {
+		given(this.vets.findAllAfter(eq("Carter"), eq(1), any(Pageable.class)))
+				.willReturn(new SliceImpl<Vet>(Lists.newArrayList(helen()), PageRequest.ofSize(1), false));
+
+		mockMvc.perform(get("/vets.html?page=2").param("afterLastName", "Carter").param("afterId", "1"))
+				.andExpect(status().isOk()).andExpect(model().attribute("keyset", true))
+				.andExpect(model().attributeExists("listVets")).andExpect(model().attributeDoesNotExist("nextAfterId"))
+				.andExpect(view().name("vets/vetList"));
+	}
+
 	@Test
 	void testShowResourcesVetList() throws Exception {
 		ResultActions actions = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON))
@@ -91,4 +111,43 @@ class VetControllerTests {
 				.andExpect(jsonPath("$.vetList[0].id").value(1));
 	}
 
+	@Test
+	void testVetListIsTaggedUntilTheVetsChange() throws Exception {
+		String etag = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(header().string("Vary", "Accept")).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+
+		Vet renamed = helen();
+		renamed.setLastName("Leary-Carter");
+		given(this.vets.findAll()).willReturn(Lists.newArrayList(james(), renamed));
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header("If-None-Match", etag))
+				.andExpect(status().isOk()).andExpect(header().string("ETag", not(etag)));
+	}
+
+	@Test
+	void testVetPageIsTaggedUntilTheVetsOnItChange() throws Exception {
+		String etag = mockMvc.perform(get("/vets.html?page=1")).andExpect(status().isOk())
+				.andExpect(header().string("Vary", "Accept-Language")).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/vets.html?page=1").header("If-None-Match", etag)).andExpect(status().isNotModified())
+				.andExpect(header().string("Vary", "Accept-Language"));
+
+		Vet renamed = helen();
+		renamed.setLastName("Leary-Carter");
+		given(this.vets.findAll(any(Pageable.class)))
+				.willReturn(new PageImpl<Vet>(Lists.newArrayList(james(), renamed)));
+		mockMvc.perform(get("/vets.html?page=1").header("If-None-Match", etag)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", not(etag)));
+	}
+
+	@Test
+	void testVetPageIsTaggedPerLanguage() throws Exception {
+		String etag = mockMvc.perform(get("/vets.html?page=1").header("Accept-Language", "de"))
+				.andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/vets.html?page=1").header("Accept-Language", "de").header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/vets.html?page=1").header("Accept-Language", "es").header("If-None-Match", etag))
+				.andExpect(status().isOk()).andExpect(header().string("ETag", not(etag)));
+	}
+
 }
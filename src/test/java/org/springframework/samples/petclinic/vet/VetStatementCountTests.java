@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the JDBC statements issued by the vet endpoints with empty caches: the
+ * specialties of all the vets listed are read with the vets, not with one statement per
+ * vet. {@link VetControllerTests} runs against a mocked repository, so the counts are
+ * checked here.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class VetStatementCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.cacheManager.getCache("vets").clear();
+		this.cacheManager.getCache("vetPages").clear();
+	}
+
+	@Test
+	void firstPageReadsIdsCountAndVetsWithSpecialties() throws Exception {
+		assertThat(statementCount(get("/vets.html?page=1"))).isEqualTo(3);
+	}
+
+	@Test
+	void lastPageReadsIdsAndVetsWithSpecialties() throws Exception {
+		// the total is known from the size of a partial last page, so there is no count
+		assertThat(statementCount(get("/vets.html?page=2"))).isEqualTo(2);
+	}
+
+	@Test
+	void keysetPageReadsIdsAndVetsWithSpecialties() throws Exception {
+		assertThat(statementCount(get("/vets.html?page=2").param("afterLastName", "Douglas").param("afterId", "3")))
+				.isEqualTo(2);
+	}
+
+	@Test
+	void vetListReadsVetsWithSpecialties() throws Exception {
+		assertThat(statementCount(get("/vets").accept(MediaType.APPLICATION_JSON))).isOne();
+	}
+
+	@Test
+	void revalidatingAnUnchangedPageReadsNothing() throws Exception {
+		String etag = this.mockMvc.perform(get("/vets.html?page=1")).andReturn().getResponse().getHeader("ETag");
+		this.statistics.clear();
+		int status = this.mockMvc.perform(get("/vets.html?page=1").header("If-None-Match", etag)).andReturn()
+				.getResponse().getStatus();
+		assertThat(status).isEqualTo(304);
+		assertThat(this.statistics.getPrepareStatementCount()).isZero();
+	}
+
+	private long statementCount(RequestBuilder request) throws Exception {
+		this.statistics.clear();
+		int status = this.mockMvc.perform(request).andReturn().getResponse().getStatus();
+		assertThat(status).isEqualTo(200);
+		return this.statistics.getPrepareStatementCount();
+	}
+
+}
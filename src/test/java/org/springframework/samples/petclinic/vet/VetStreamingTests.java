@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that {@code /vets/stream} writes the same documents as {@code /vets}, from a
+ * single query.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class VetStreamingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void streamsTheSameJsonAsTheVetList() throws Exception {
+		String expected = this.mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andReturn()
+				.getResponse().getContentAsString();
+
+		this.mockMvc.perform(asyncDispatch(stream(MediaType.APPLICATION_JSON))).andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON)).andExpect(content().json(expected, true));
+	}
+
+	@Test
+	void streamsTheSameXmlAsTheVetList() throws Exception {
+		String expected = this.mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML)).andReturn().getResponse()
+				.getContentAsString();
+
+		this.mockMvc.perform(asyncDispatch(stream(MediaType.APPLICATION_XML))).andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_XML)).andExpect(content().xml(expected));
+	}
+
+	@Test
+	void readsVetsAndSpecialtiesWithOneQuery() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(asyncDispatch(stream(MediaType.APPLICATION_JSON))).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isOne();
+	}
+
+	private MvcResult stream(MediaType mediaType) throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/vets/stream").accept(mediaType))
+				.andExpect(request().asyncStarted()).andReturn();
+		// the body is written by the async task, wait for it before dispatching
+		result.getAsyncResult();
+		return result;
+	}
+
+}
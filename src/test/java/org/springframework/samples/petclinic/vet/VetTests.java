@@ -37,4 +37,33 @@ class VetTests {
 		assertThat(other.getId()).isEqualTo(vet.getId());
 	}
 
+	@Test
+	void testSpecialtiesAreSortedByNameAndReused() {
+		Vet vet = new Vet();
+		vet.addSpecialty(specialty("surgery"));
+		vet.addSpecialty(specialty("Dentistry"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("Dentistry", "surgery");
+		assertThat(vet.getSpecialties()).isSameAs(vet.getSpecialties());
+
+		vet.addSpecialty(specialty("radiology"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("Dentistry", "radiology",
+				"surgery");
+	}
+
+	@Test
+	void testSpecialtiesChangedThroughTheInternalSetAreSortedAgain() {
+		Vet vet = new Vet();
+		vet.addSpecialty(specialty("surgery"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("surgery");
+
+		vet.getSpecialtiesInternal().add(specialty("dentistry"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("dentistry", "surgery");
+	}
+
+	private static Specialty specialty(String name) {
+		Specialty specialty = new Specialty();
+		specialty.setName(name);
+		return specialty;
+	}
+
 }